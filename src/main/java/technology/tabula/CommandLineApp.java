@@ -4,9 +4,11 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.FileWriter;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -15,9 +17,12 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.DefaultParser;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.DefaultResourceCache;
 import org.apache.pdfbox.pdmodel.PDDocument;
 
 import technology.tabula.detectors.DetectionAlgorithm;
+import technology.tabula.detectors.EdgeDetection;
 import technology.tabula.detectors.NurminenDetectionAlgorithm;
 import technology.tabula.extractors.BasicExtractionAlgorithm;
 import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
@@ -36,6 +41,9 @@ public class CommandLineApp {
     private static final int RELATIVE_AREA_CALCULATION_MODE = 0;
     private static final int ABSOLUTE_AREA_CALCULATION_MODE = 1;
 
+    // document buffers above this size go to a scratch file
+    private static final long MAX_MAIN_MEMORY_BYTES = 64L * 1024 * 1024;
+
 
     private Appendable defaultOutput;
 
@@ -153,14 +161,19 @@ public class CommandLineApp {
     private void extractFile(File pdfFile, Appendable outFile) throws ParseException {
         PDDocument pdfDocument = null;
         try {
-            pdfDocument = this.password == null ? PDDocument.load(pdfFile) : PDDocument.load(pdfFile, this.password);
+            MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES);
+            pdfDocument = PDDocument.load(pdfFile, this.password == null ? "" : this.password, memoryUsageSetting);
             PageIterator pageIterator = getPageIterator(pdfDocument);
-            List<Table> tables = new ArrayList<>();
+            TableStreamWriter tableWriter = new TableStreamWriter(outFile);
 
+            // tables are written as soon as their page is done, so memory use doesn't grow with the document
             while (pageIterator.hasNext()) {
+                // fonts, images, etc. cached for the previous page may not be used anymore
+                pdfDocument.setResourceCache(new DefaultResourceCache());
                 Page page = pageIterator.next();
+                List<Table> tables = new ArrayList<>();
 
-                if (tableExtractor.verticalRulingPositions != null) {
+                if (tableExtractor.verticalRulingPositions != null && tableExtractor.method != ExtractionMethod.BASIC) {
                     for (Float verticalRulingPosition : tableExtractor.verticalRulingPositions) {
                         page.addRuling(new Ruling(0, verticalRulingPosition, 0.0f, (float) page.getHeight()));
                     }
@@ -179,8 +192,9 @@ public class CommandLineApp {
                 } else {
                     tables.addAll(tableExtractor.extractTables(page));
                 }
+                tableWriter.write(tables);
             }
-            writeTables(tables, outFile);
+            tableWriter.finish();
         } catch (IOException e) {
             throw new ParseException(e.getMessage());
         } finally {
@@ -195,7 +209,7 @@ public class CommandLineApp {
     }
 
     private PageIterator getPageIterator(PDDocument pdfDocument) throws IOException {
-        ObjectExtractor extractor = new ObjectExtractor(pdfDocument);
+        ObjectExtractor extractor = new ObjectExtractor(pdfDocument, tableExtractor.getExtractionProfile());
         return (pages == null) ?
                 extractor.extract() :
                 extractor.extract(pages);
@@ -218,6 +232,30 @@ public class CommandLineApp {
         }
     }
 
+    private static EdgeDetection whichEdgeDetection(CommandLine line) throws ParseException {
+        if (!line.hasOption("edge-detection")) {
+            return EdgeDetection.RENDER_TWICE;
+        }
+
+        try {
+            return EdgeDetection.valueOf(line.getOptionValue("edge-detection"));
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(String.format(
+                    "edge detection %s is illegal. Available edge detections: %s",
+                    line.getOptionValue("edge-detection"),
+                    Utils.join(",", edgeDetectionNames())));
+        }
+    }
+
+    private static String[] edgeDetectionNames() {
+        EdgeDetection[] values = EdgeDetection.values();
+        String[] rv = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            rv[i] = values[i].name();
+        }
+        return rv;
+    }
+
     private static List<Pair<Integer, Rectangle>> whichAreas(CommandLine line) throws ParseException {
         if (!line.hasOption('a')) {
             return null;
@@ -263,6 +301,7 @@ public class CommandLineApp {
     private static TableExtractor createExtractor(CommandLine line) throws ParseException {
         TableExtractor extractor = new TableExtractor();
         extractor.setGuess(line.hasOption('g'));
+        extractor.setEdgeDetection(CommandLineApp.whichEdgeDetection(line));
         extractor.setMethod(CommandLineApp.whichExtractionMethod(line));
         extractor.setUseLineReturns(line.hasOption('u'));
 
@@ -358,12 +397,23 @@ public class CommandLineApp {
                 .hasArg()
                 .argName("PAGES")
                 .build());
+        o.addOption(Option.builder()
+                .longOpt("edge-detection")
+                .desc("How -g/--guess finds the ruling lines of a page: (" + Utils.join(",", edgeDetectionNames()) + "). "
+                        + "RENDER_ONCE renders the page once instead of twice; VECTOR_FIRST takes the ruling lines drawn in the PDF "
+                        + "when they make cells and nothing else may draw lines. Both are faster, but may find tables differently. "
+                        + "Default: RENDER_TWICE")
+                .hasArg()
+                .argName("EDGE_DETECTION")
+                .build());
 
         return o;
     }
 
     private static class TableExtractor {
         private boolean guess = false;
+        // guessing scans the rendered pages for edges on all the cores
+        private DetectionAlgorithm detector = new NurminenDetectionAlgorithm(EdgeDetection.RENDER_TWICE, ForkJoinPool.commonPool());
         private boolean useLineReturns = false;
         private BasicExtractionAlgorithm basicExtractor = new BasicExtractionAlgorithm();
         private SpreadsheetExtractionAlgorithm spreadsheetExtractor = new SpreadsheetExtractionAlgorithm();
@@ -388,6 +438,10 @@ public class CommandLineApp {
             this.guess = guess;
         }
 
+        public void setEdgeDetection(EdgeDetection edgeDetection) {
+            this.detector = new NurminenDetectionAlgorithm(edgeDetection, ForkJoinPool.commonPool());
+        }
+
         public void setUseLineReturns(boolean useLineReturns) {
             this.useLineReturns = useLineReturns;
         }
@@ -396,6 +450,11 @@ public class CommandLineApp {
             this.method = method;
         }
 
+        public ExtractionProfile getExtractionProfile() {
+            // only the spreadsheet extractor, and deciding whether to use it, needs the rulings of the page
+            return method == ExtractionMethod.BASIC ? ExtractionProfile.TEXT : ExtractionProfile.TEXT_AND_RULINGS;
+        }
+
         public List<Table> extractTables(Page page) {
             ExtractionMethod effectiveMethod = this.method;
             if (effectiveMethod == ExtractionMethod.DECIDE) {
@@ -417,7 +476,6 @@ public class CommandLineApp {
             if (guess) {
                 // guess the page areas to extract using a detection algorithm
                 // currently we only have a detector that uses spreadsheets to find table areas
-                DetectionAlgorithm detector = new NurminenDetectionAlgorithm();
                 List<Rectangle> guesses = detector.detect(page);
                 List<Table> tables = new ArrayList<>();
 
@@ -453,20 +511,91 @@ public class CommandLineApp {
         }
     }
 
-    private void writeTables(List<Table> tables, Appendable out) throws IOException {
-        Writer writer = null;
-        switch (outputFormat) {
-            case CSV:
-                writer = new CSVWriter();
-                break;
-            case JSON:
-                writer = new JSONWriter();
-                break;
-            case TSV:
-                writer = new TSVWriter();
-                break;
+    /**
+     * Writes the tables of a document a few at a time, with the same result as writing them all at once.
+     */
+    private class TableStreamWriter {
+        private final Appendable out;
+        private final Writer writer;
+        private int tableCount = 0;
+
+        TableStreamWriter(Appendable out) throws IOException {
+            this.out = out;
+            switch (outputFormat) {
+                case JSON:
+                    writer = new JSONWriter();
+                    // tables are written one by one, as the elements of a single array
+                    out.append('[');
+                    break;
+                case TSV:
+                    writer = new TSVWriter();
+                    break;
+                case CSV:
+                default:
+                    writer = new CSVWriter();
+                    break;
+            }
+        }
+
+        void write(List<Table> tables) throws IOException {
+            if (outputFormat == OutputFormat.JSON) {
+                for (Table table : tables) {
+                    if (tableCount > 0) {
+                        out.append(',');
+                    }
+                    writer.write(out, table);
+                    tableCount++;
+                }
+            } else {
+                // the CSV writers close what they write to, but the tables of the next pages go there too
+                writer.write(new UnclosableAppendable(out), tables);
+                tableCount += tables.size();
+            }
+            flush();
+        }
+
+        void finish() throws IOException {
+            if (outputFormat == OutputFormat.JSON) {
+                out.append(']');
+            }
+            flush();
+        }
+
+        private void flush() throws IOException {
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
+        }
+    }
+
+    /**
+     * An Appendable that only appends to another one, which is then not closed by those that close
+     * what they're given if it's Closeable.
+     */
+    private static final class UnclosableAppendable implements Appendable {
+        private final Appendable out;
+
+        UnclosableAppendable(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            out.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            out.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            out.append(c);
+            return this;
         }
-        writer.write(out, tables);
     }
 
     private String getOutputFilename(File pdfFile) {
@@ -0,0 +1,28 @@
+package technology.tabula;
+
+/**
+ * Which parts of a page {@link ObjectExtractor} extracts up front.
+ *
+ * Parts that are left out are extracted from the extractor's document the first time
+ * the {@link Page} needs them, so the document must stay open until the page is done with,
+ * and such pages must not be used from several threads at once.
+ */
+public enum ExtractionProfile {
+
+    /**
+     * Text and rulings, collected in a single pass over the page.
+     */
+    TEXT_AND_RULINGS,
+
+    /**
+     * Text only. Enough for {@link technology.tabula.extractors.BasicExtractionAlgorithm},
+     * which doesn't look at the rulings of the page.
+     */
+    TEXT,
+
+    /**
+     * Nothing, every part of the page is extracted on first access.
+     */
+    ON_DEMAND
+
+}
@@ -0,0 +1,245 @@
+package technology.tabula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * The glyphs of a page, stored column by column in primitive arrays rather than as one
+ * {@link TextElement} per glyph. {@link TextElement}s are only created when they're asked for.
+ *
+ * Fonts are stored once, and referred to by id. The text of glyph <code>i</code> is
+ * <code>chars[textStart[i]]</code> .. <code>chars[textStart[i + 1] - 1]</code>.
+ */
+public final class GlyphStore {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private float[] x, y, width, height, fontSize, widthOfSpace, dir;
+    private int[] fontId;
+    private int[] textStart;
+    private char[] chars;
+    private int size;
+    private int charCount;
+
+    private final List<PDFont> fonts = new ArrayList<>();
+    private final Map<PDFont, Integer> fontIds = new HashMap<>();
+
+    public GlyphStore() {
+        x = new float[INITIAL_CAPACITY];
+        y = new float[INITIAL_CAPACITY];
+        width = new float[INITIAL_CAPACITY];
+        height = new float[INITIAL_CAPACITY];
+        fontSize = new float[INITIAL_CAPACITY];
+        widthOfSpace = new float[INITIAL_CAPACITY];
+        dir = new float[INITIAL_CAPACITY];
+        fontId = new int[INITIAL_CAPACITY];
+        textStart = new int[INITIAL_CAPACITY + 1];
+        chars = new char[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a glyph, with the same arguments as {@link TextElement#TextElement(float, float, float, float, PDFont, float, String, float, float)}.
+     */
+    public void add(float y, float x, float width, float height, PDFont font, float fontSize, String text, float widthOfSpace, float dir) {
+        if (size == this.x.length) {
+            grow();
+        }
+        this.x[size] = x;
+        this.y[size] = y;
+        this.width[size] = width;
+        this.height[size] = height;
+        this.fontSize[size] = fontSize;
+        this.widthOfSpace[size] = widthOfSpace;
+        this.dir[size] = dir;
+        this.fontId[size] = idOf(font);
+
+        if (charCount + text.length() > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + text.length()));
+        }
+        text.getChars(0, text.length(), chars, charCount);
+        charCount += text.length();
+        textStart[++size] = charCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public float getY(int i) {
+        return y[i];
+    }
+
+    public float getWidth(int i) {
+        return width[i];
+    }
+
+    public float getHeight(int i) {
+        return height[i];
+    }
+
+    public PDFont getFont(int i) {
+        return fontId[i] < 0 ? null : fonts.get(fontId[i]);
+    }
+
+    public String getText(int i) {
+        return new String(chars, textStart[i], textStart[i + 1] - textStart[i]);
+    }
+
+    /**
+     * Creates the {@link TextElement} of glyph <code>i</code>.
+     */
+    public TextElement getTextElement(int i) {
+        return new TextElement(y[i], x[i], width[i], height[i], getFont(i), fontSize[i], getText(i), widthOfSpace[i], dir[i]);
+    }
+
+    /**
+     * Creates the {@link TextElement}s of all the glyphs, in their current order.
+     */
+    public List<TextElement> toTextElements() {
+        List<TextElement> rv = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rv.add(getTextElement(i));
+        }
+        return rv;
+    }
+
+    /**
+     * Sorts the glyphs in {@link Rectangle#ILL_DEFINED_ORDER}. The result is the same as sorting
+     * their {@link TextElement}s with {@link Utils#sort(List, java.util.Comparator)}, which matters
+     * because that order isn't a total one.
+     */
+    public void sort() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        if (Utils.useQuickSort) {
+            QuickSort.sort(order, this::compareIllDefined);
+        } else {
+            List<Integer> boxed = new ArrayList<>(size);
+            for (int i : order) {
+                boxed.add(i);
+            }
+            Collections.sort(boxed, this::compareIllDefined);
+            for (int i = 0; i < size; i++) {
+                order[i] = boxed.get(i);
+            }
+        }
+        permute(order);
+    }
+
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    /**
+     * {@link Rectangle#ILL_DEFINED_ORDER} on the TextElements of glyphs <code>i</code> and <code>j</code>,
+     * with the same float arithmetic.
+     */
+    private int compareIllDefined(int i, int j) {
+        if (textElementsEqual(i, j)) {
+            return 0;
+        }
+        float bottomI = (float) ((double) y[i] + (double) height[i]);
+        float bottomJ = (float) ((double) y[j] + (double) height[j]);
+        float verticalOverlap = Math.max(0, Math.min(bottomI, bottomJ) - Math.max(y[i], y[j]));
+        if (verticalOverlap > Rectangle.VERTICAL_COMPARISON_THRESHOLD) {
+            // TextElements are never right to left dominant
+            return Double.compare(x[i], x[j]);
+        }
+        return Float.compare(bottomI, bottomJ);
+    }
+
+    private boolean textElementsEqual(int i, int j) {
+        return x[i] == x[j] && y[i] == y[j] && width[i] == width[j] && height[i] == height[j]
+                && Float.floatToIntBits(dir[i]) == Float.floatToIntBits(dir[j])
+                && fontId[i] == fontId[j]
+                && Float.floatToIntBits(fontSize[i]) == Float.floatToIntBits(fontSize[j])
+                && textEquals(i, j)
+                && Float.floatToIntBits(widthOfSpace[i]) == Float.floatToIntBits(widthOfSpace[j]);
+    }
+
+    private boolean textEquals(int i, int j) {
+        int length = textStart[i + 1] - textStart[i];
+        if (length != textStart[j + 1] - textStart[j]) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (chars[textStart[i] + k] != chars[textStart[j] + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int idOf(PDFont font) {
+        if (font == null) {
+            return -1;
+        }
+        Integer id = fontIds.get(font);
+        if (id == null) {
+            id = fonts.size();
+            fonts.add(font);
+            fontIds.put(font, id);
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        fontSize = Arrays.copyOf(fontSize, capacity);
+        widthOfSpace = Arrays.copyOf(widthOfSpace, capacity);
+        dir = Arrays.copyOf(dir, capacity);
+        fontId = Arrays.copyOf(fontId, capacity);
+        textStart = Arrays.copyOf(textStart, capacity + 1);
+    }
+
+    /**
+     * Puts glyph <code>order[i]</code> at position <code>i</code>.
+     */
+    private void permute(int[] order) {
+        x = permute(x, order);
+        y = permute(y, order);
+        width = permute(width, order);
+        height = permute(height, order);
+        fontSize = permute(fontSize, order);
+        widthOfSpace = permute(widthOfSpace, order);
+        dir = permute(dir, order);
+
+        int[] newFontId = new int[fontId.length];
+        int[] newTextStart = new int[textStart.length];
+        char[] newChars = new char[chars.length];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            int glyph = order[i];
+            newFontId[i] = fontId[glyph];
+            int length = textStart[glyph + 1] - textStart[glyph];
+            System.arraycopy(chars, textStart[glyph], newChars, position, length);
+            position += length;
+            newTextStart[i + 1] = position;
+        }
+        fontId = newFontId;
+        textStart = newTextStart;
+        chars = newChars;
+    }
+
+    private static float[] permute(float[] values, int[] order) {
+        float[] rv = new float[values.length];
+        for (int i = 0; i < order.length; i++) {
+            rv[i] = values[order[i]];
+        }
+        return rv;
+    }
+
+}
@@ -1,32 +1,56 @@
 package technology.tabula;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 
 public class ObjectExtractor implements java.io.Closeable {
 
     private final PDDocument pdfDocument;
+    private final ExtractionProfile profile;
+    // the handles extractParallel parsed pages from, whose fonts those pages use
+    private final List<PDDocument> workerDocuments = new ArrayList<>();
+    private boolean closed;
 
     public ObjectExtractor(PDDocument pdfDocument) {
+        this(pdfDocument, ExtractionProfile.TEXT_AND_RULINGS);
+    }
+
+    /**
+     * @param profile which parts of the pages to extract up front, the rest is extracted on demand
+     */
+    public ObjectExtractor(PDDocument pdfDocument, ExtractionProfile profile) {
         this.pdfDocument = pdfDocument;
+        this.profile = profile;
     }
 
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
     protected Page extractPage(Integer pageNumber) throws IOException {
-        if (pageNumber > pdfDocument.getNumberOfPages() || pageNumber < 1) {
-            throw new java.lang.IndexOutOfBoundsException("Page number does not exist.");
-        }
+        checkPageNumber(pageNumber);
         PDPage page = pdfDocument.getPage(pageNumber - 1);
+        return extractPage(pdfDocument, pageNumber, page);
+    }
 
-        ObjectExtractorStreamEngine streamEngine = new ObjectExtractorStreamEngine(page);
-        streamEngine.processPage(page);
-
-        TextStripper textStripper = new TextStripper(pdfDocument, pageNumber);
-        textStripper.process();
-
-        Utils.sort(textStripper.getTextElements(), Rectangle.ILL_DEFINED_ORDER);
+    /**
+     * Parses page <code>pageNumber</code> out of <code>document</code>, which may be
+     * a separate handle on the same file, and binds the resulting {@link Page}
+     * to <code>pdPage</code> of this extractor's document.
+     */
+    private Page extractPage(PDDocument document, Integer pageNumber, PDPage pdPage) throws IOException {
+        PDPage page = document.getPage(pageNumber - 1);
 
         float width, height;
         int rotation = page.getRotation();
@@ -38,18 +62,76 @@ public class ObjectExtractor implements java.io.Closeable {
             height = page.getCropBox().getHeight();
         }
 
-        return Page.Builder.newInstance()
+        Page.Builder builder = Page.Builder.newInstance()
                 .withPageDims(PageDims.of(0, 0, width, height))
                 .withRotation(rotation)
                 .withNumber(pageNumber)
-                .withPdPage(page)
-                .withPdDocument(pdfDocument)
-                .withRulings(streamEngine.rulings)
-                .withTextElements(textStripper.getTextElements())
+                .withPdPage(pdPage)
+                .withPdDocument(pdfDocument);
+
+        switch (profile) {
+            case TEXT_AND_RULINGS:
+                TextAndRulingStripper textAndRulingStripper = new TextAndRulingStripper(document, pageNumber);
+                textAndRulingStripper.process();
+                sortTextElements(textAndRulingStripper);
+                withText(builder, textAndRulingStripper).withRulings(textAndRulingStripper.getRulings());
+                break;
+            case TEXT:
+                withText(builder, stripText(document, pageNumber)).withRulingsLoader(() -> extractRulingsUnchecked(pdPage));
+                break;
+            case ON_DEMAND:
+                builder.withTextLoader(() -> stripTextUnchecked(pageNumber)).withRulingsLoader(() -> extractRulingsUnchecked(pdPage));
+                break;
+        }
+
+        return builder.build();
+    }
+
+    private static Page.Builder withText(Page.Builder builder, TextStripper textStripper) {
+        return builder
+                .withGlyphs(textStripper.getGlyphs())
                 .withMinCharWidth(textStripper.getMinCharWidth())
-                .withMinCharHeight(textStripper.getMinCharHeight())
-                .withIndex(textStripper.getSpatialIndex())
-                .build();
+                .withMinCharHeight(textStripper.getMinCharHeight());
+    }
+
+    private static void sortTextElements(TextStripper textStripper) {
+        textStripper.getGlyphs().sort();
+    }
+
+    private static TextStripper stripText(PDDocument document, int pageNumber) throws IOException {
+        TextStripper textStripper = new TextStripper(document, pageNumber);
+        textStripper.process();
+        sortTextElements(textStripper);
+        return textStripper;
+    }
+
+    private static List<Ruling> extractRulings(PDPage page) throws IOException {
+        ObjectExtractorStreamEngine streamEngine = new ObjectExtractorStreamEngine(page);
+        streamEngine.processPage(page);
+        return streamEngine.rulings;
+    }
+
+    // the loaders of lazily extracted parts can't throw checked exceptions
+    private TextStripper stripTextUnchecked(int pageNumber) {
+        try {
+            return stripText(pdfDocument, pageNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Ruling> extractRulingsUnchecked(PDPage page) {
+        try {
+            return extractRulings(page);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkPageNumber(Integer pageNumber) {
+        if (pageNumber > pdfDocument.getNumberOfPages() || pageNumber < 1) {
+            throw new java.lang.IndexOutOfBoundsException("Page number does not exist.");
+        }
     }
 
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
@@ -65,8 +147,97 @@ public class ObjectExtractor implements java.io.Closeable {
         return extract(Utils.range(pageNumber, pageNumber + 1)).next();
     }
 
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    /**
+     * Extracts <code>pages</code> concurrently on <code>executor</code> and returns them in the
+     * order they were requested.
+     *
+     * PDDocument is not thread safe, so every worker thread parses from its own handle on the
+     * document, obtained from <code>documentLoader</code>. Handles are reused across pages. The
+     * returned pages refer to this extractor's document, just like the ones returned by
+     * {@link #extract(Iterable)}, but their text keeps the fonts of the handles it was parsed from,
+     * so the handles stay open until this extractor is closed.
+     */
+    public List<Page> extractParallel(Iterable<Integer> pages, ExecutorService executor,
+                                      final Callable<PDDocument> documentLoader) throws IOException {
+        final Queue<PDDocument> handles = new ConcurrentLinkedQueue<>();
+        List<Callable<Page>> tasks = new ArrayList<>();
+        for (final Integer pageNumber : pages) {
+            checkPageNumber(pageNumber);
+            // resolve the page here, the calling thread is the only one touching pdfDocument
+            final PDPage pdPage = pdfDocument.getPage(pageNumber - 1);
+            tasks.add(() -> {
+                PDDocument handle = handles.poll();
+                if (handle == null) {
+                    handle = loadWorkerDocument(documentLoader);
+                }
+                try {
+                    return extractPage(handle, pageNumber, pdPage);
+                } finally {
+                    handles.add(handle);
+                }
+            });
+        }
+
+        try {
+            List<Page> rv = new ArrayList<>(tasks.size());
+            for (Future<Page> future : executor.invokeAll(tasks)) {
+                rv.add(future.get());
+            }
+            return rv;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting pages");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Like {@link #extractParallel(Iterable, ExecutorService, Callable)}, with the worker handles
+     * opened from <code>file</code>, which must be the file this extractor's document was loaded from.
+     * Pass a <code>documentLoader</code> that gives the password to open files that need one.
+     */
+    public List<Page> extractParallel(Iterable<Integer> pages, ExecutorService executor, final File file) throws IOException {
+        return extractParallel(pages, executor, () -> PDDocument.load(file));
+    }
+
+    public List<Page> extractParallel(ExecutorService executor, File file) throws IOException {
+        return extractParallel(Utils.range(1, pdfDocument.getNumberOfPages() + 1), executor, file);
+    }
+
+    /**
+     * Loads a worker handle, keeping track of it so that it's closed with this extractor, even when
+     * the task it's loaded for outlives the call to extractParallel.
+     */
+    private PDDocument loadWorkerDocument(Callable<PDDocument> documentLoader) throws Exception {
+        PDDocument handle = documentLoader.call();
+        synchronized (workerDocuments) {
+            if (closed) {
+                IOUtils.closeQuietly(handle);
+                throw new IOException("The extractor is closed");
+            }
+            workerDocuments.add(handle);
+        }
+        return handle;
+    }
+
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
     public void close() throws IOException {
+        synchronized (workerDocuments) {
+            closed = true;
+            for (PDDocument handle : workerDocuments) {
+                IOUtils.closeQuietly(handle);
+            }
+            workerDocuments.clear();
+        }
         pdfDocument.close();
     }
     
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -22,6 +23,8 @@ public class Page extends Rectangle {
     private float minCharHeight;
 
     private List<TextElement> textElements;
+    // the text of the page until textElements are needed
+    private GlyphStore glyphs;
 
     // TODO: Create a class for 'List <Ruling>' that encapsulates all of these lists and their behaviors?
     private List<Ruling> rulings,
@@ -34,6 +37,10 @@ public class Page extends Rectangle {
 
     private RectangleSpatialIndex<TextElement> spatialIndex;
 
+    // parts of the page that will be extracted the first time they're needed, see ExtractionProfile
+    private Supplier<TextStripper> textLoader;
+    private Supplier<List<Ruling>> rulingsLoader;
+
     private static final float DEFAULT_MIN_CHAR_LENGTH = 7;
 
     private Page(
@@ -43,10 +50,13 @@ public class Page extends Rectangle {
             PDPage pdPage,
             PDDocument doc,
             List<TextElement> characters,
+            GlyphStore glyphs,
             List<Ruling> rulings,
             float minCharWidth,
             float minCharHeight,
-            RectangleSpatialIndex<TextElement> index
+            RectangleSpatialIndex<TextElement> index,
+            Supplier<TextStripper> textLoader,
+            Supplier<List<Ruling>> rulingsLoader
     ) {
         super(pageDims.getTop(), pageDims.getLeft(), pageDims.getWidth(), pageDims.getHeight());
         this.rotation = rotation;
@@ -54,10 +64,13 @@ public class Page extends Rectangle {
         this.pdPage = pdPage;
         this.pdDoc = doc;
         this.textElements = characters;
+        this.glyphs = glyphs;
         this.rulings = rulings;
         this.minCharWidth = minCharWidth;
         this.minCharHeight = minCharHeight;
         this.spatialIndex = index;
+        this.textLoader = textLoader;
+        this.rulingsLoader = rulingsLoader;
     }
 
   /**
@@ -125,13 +138,17 @@ public class Page extends Rectangle {
                 .withPdPage(pdPage)
                 .withPdDocument(pdDoc)
                 .withTextElements(areaTextElements)
-                .withRulings(Ruling.cropRulingsToArea(getRulings(), area))
                 .withMinCharWidth(minimumCharWidth)
                 .withMinCharHeight(minimumCharHeight)
                 .withIndex(spatialIndex)
                 .build();
 
-        addBorderRulingsTo(page);
+        // the rulings of this page may not even be extracted yet, so crop them when the area needs them
+        page.rulingsLoader = () -> {
+            List<Ruling> areaRulings = Ruling.cropRulingsToArea(getRulings(), page);
+            areaRulings.addAll(getBorderRulingsOf(page));
+            return areaRulings;
+        };
 
         return page;
     }
@@ -150,15 +167,17 @@ public class Page extends Rectangle {
         return DEFAULT_MIN_CHAR_LENGTH;
     }
 
-    private void addBorderRulingsTo(Page page) {
+    private static List<Ruling> getBorderRulingsOf(Page page) {
         Point2D.Double leftTop = new Point2D.Double(page.getLeft(), page.getTop()),
                 rightTop = new Point2D.Double(page.getRight(), page.getTop()),
                 rightBottom = new Point2D.Double(page.getRight(), page.getBottom()),
                 leftBottom = new Point2D.Double(page.getLeft(), page.getBottom());
-        page.addRuling(new Ruling(leftTop, rightTop));
-        page.addRuling(new Ruling(rightTop, rightBottom));
-        page.addRuling(new Ruling(rightBottom, leftBottom));
-        page.addRuling(new Ruling(leftBottom, leftTop));
+        List<Ruling> borderRulings = new ArrayList<>(4);
+        borderRulings.add(new Ruling(leftTop, rightTop));
+        borderRulings.add(new Ruling(rightTop, rightBottom));
+        borderRulings.add(new Ruling(rightBottom, leftBottom));
+        borderRulings.add(new Ruling(leftBottom, leftTop));
+        return borderRulings;
     }
 
     public Page getArea(float top, float left, float bottom, float right) {
@@ -180,6 +199,7 @@ public class Page extends Rectangle {
      */
     @Deprecated
     public float getMinCharWidth() {
+        loadText();
         return minCharWidth;
     }
 
@@ -188,16 +208,37 @@ public class Page extends Rectangle {
      */
     @Deprecated
     public float getMinCharHeight() {
+        loadText();
         return minCharHeight;
     }
 
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
     public List<TextElement> getText() {
+        loadText();
+        if (glyphs != null) {
+            textElements = glyphs.toTextElements();
+            glyphs = null;
+        }
         return textElements;
     }
 
     public List<TextElement> getText(Rectangle area) {
-        return spatialIndex.contains(area);
+        return getTextIndex().contains(area);
+    }
+
+    /**
+     * Like {@linkplain #getText(Rectangle)}, but puts the text elements into <code>rv</code>, replacing its contents.
+     */
+    public List<TextElement> getText(Rectangle area, List<TextElement> rv) {
+        return getTextIndex().contains(area, rv, true);
+    }
+
+    /**
+     * The text elements of each of <code>areas</code>, as {@linkplain #getText(Rectangle)} would give them,
+     * but found all at once.
+     */
+    public List<List<TextElement>> getText(List<? extends Rectangle> areas) {
+        return getTextIndex().contains(areas);
     }
 
     /**
@@ -213,7 +254,7 @@ public class Page extends Rectangle {
      */
     @Deprecated
     public List<TextElement> getTexts() {
-        return textElements;
+        return getText();
     }
 
     /**
@@ -233,7 +274,7 @@ public class Page extends Rectangle {
      */
     @Deprecated
     public boolean hasText() {
-        return textElements.size() > 0;
+        return getText().size() > 0;
     }
 
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
@@ -242,12 +283,16 @@ public class Page extends Rectangle {
             return cleanRulings;
         }
 
+        loadRulings();
         if (rulings == null || rulings.isEmpty()) {
             verticalRulingLines = new ArrayList<>();
             horizontalRulingLines = new ArrayList<>();
             return new ArrayList<>();
         }
 
+        // the snapping thresholds come from the text
+        loadText();
+
         // TODO: Move as a static method to the Ruling class?
         Utils.snapPoints(rulings, minCharWidth, minCharHeight);
 
@@ -301,6 +346,7 @@ public class Page extends Rectangle {
         if (ruling.oblique()) {
             throw new UnsupportedOperationException("Can't add an oblique ruling.");
         }
+        loadRulings();
         rulings.add(ruling);
         // Clear caches:
         verticalRulingLines = null;
@@ -309,9 +355,37 @@ public class Page extends Rectangle {
     }
 
     public List<Ruling> getUnprocessedRulings() {
+        loadRulings();
         return rulings;
     }
 
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    private void loadText() {
+        if (textLoader == null) {
+            return;
+        }
+        TextStripper textStripper = textLoader.get();
+        textLoader = null;
+        glyphs = textStripper.getGlyphs();
+        minCharWidth = textStripper.getMinCharWidth();
+        minCharHeight = textStripper.getMinCharHeight();
+    }
+
+    private void loadRulings() {
+        if (rulingsLoader == null) {
+            return;
+        }
+        rulings = rulingsLoader.get();
+        rulingsLoader = null;
+    }
+
+    private RectangleSpatialIndex<TextElement> getTextIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = RectangleSpatialIndex.of(getText());
+        }
+        return spatialIndex;
+    }
+
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
     public PDPage getPDPage() {
         return pdPage;
@@ -328,7 +402,7 @@ public class Page extends Rectangle {
      */
     @Deprecated
     public RectangleSpatialIndex<TextElement> getSpatialIndex() {
-        return spatialIndex;
+        return getTextIndex();
     }
 
     public static class Builder {
@@ -338,10 +412,13 @@ public class Page extends Rectangle {
         private PDPage pdPage;
         private PDDocument pdDocument;
         private List<TextElement> textElements;
+        private GlyphStore glyphs;
         private List<Ruling> rulings;
         private float minCharWidth;
         private float minCharHeight;
         private RectangleSpatialIndex<TextElement> index;
+        private Supplier<TextStripper> textLoader;
+        private Supplier<List<Ruling>> rulingsLoader;
 
         private Builder() {}
 
@@ -385,6 +462,15 @@ public class Page extends Rectangle {
             return this;
         }
 
+        /**
+         * Text elements are created from <code>glyphs</code> when the page needs them.
+         */
+        Builder withGlyphs(GlyphStore glyphs) {
+            this.glyphs = glyphs;
+
+            return this;
+        }
+
         public Builder withRulings(List<Ruling> rulings) {
             this.rulings = rulings;
 
@@ -409,8 +495,28 @@ public class Page extends Rectangle {
             return this;
         }
 
+        /**
+         * Text elements, min char metrics and spatial index are taken from the stripper returned by
+         * <code>textLoader</code>, which is only called when the page needs them.
+         */
+        Builder withTextLoader(Supplier<TextStripper> textLoader) {
+            this.textLoader = textLoader;
+
+            return this;
+        }
+
+        /**
+         * Rulings are taken from <code>rulingsLoader</code>, which is only called when the page needs them.
+         */
+        Builder withRulingsLoader(Supplier<List<Ruling>> rulingsLoader) {
+            this.rulingsLoader = rulingsLoader;
+
+            return this;
+        }
+
         public Page build() {
-            return new Page(pageDims, rotation, number, pdPage, pdDocument, textElements, rulings, minCharWidth, minCharHeight, index);
+            return new Page(pageDims, rotation, number, pdPage, pdDocument, textElements, glyphs, rulings, minCharWidth, minCharHeight, index,
+                    textLoader, rulingsLoader);
         }
     }
 }
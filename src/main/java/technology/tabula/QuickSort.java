@@ -17,6 +17,7 @@
 package technology.tabula;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.RandomAccess;
@@ -56,6 +57,39 @@ public final class QuickSort {
 		}
 	}
 
+	/**
+	 * Compares two ints, typically indices of the things to compare.
+	 */
+	public interface IntComparator {
+		int compare(int i, int j);
+	}
+
+	/**
+	 * Sorts the given array using the given comparator, with the same steps as
+	 * {@link #sort(List, Comparator)}, so that an ill-defined comparator gives the same result.
+	 */
+	public static void sort(int[] array, IntComparator cmp) {
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = array.length;
+		while (top > 0) {
+			int right = stack[--top];
+			int left = stack[--top];
+
+			if (right - left < 2) continue;
+			int p = left + ((right - left) / 2);
+			p = partition(array, cmp, p, left, right);
+
+			if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+			stack[top++] = p + 1;
+			stack[top++] = right;
+
+			stack[top++] = left;
+			stack[top++] = p;
+		}
+	}
+
 	private static <T> void quicksort(List<T> list, Comparator<? super T> cmp) {
 		Stack<Integer> stack = new Stack<>();
 		stack.push(0);
@@ -93,6 +127,29 @@ public final class QuickSort {
 		return idx;
 	}
 
+	private static int partition(int[] array, IntComparator cmp, int p, int start, int end) {
+		int l = start;
+		int h = end - 2;
+		int piv = array[p];
+		swap(array, p, end - 1);
+
+		while (l < h) {
+			     if (cmp.compare(array[l], piv) <= 0) l++;
+			else if (cmp.compare(piv, array[h]) <= 0) h--;
+			else                                       swap(array, l, h);
+		}
+		int idx = h;
+		if (cmp.compare(array[h], piv) < 0) idx++;
+		swap(array, end - 1, idx);
+		return idx;
+	}
+
+	private static void swap(int[] array, int i, int j) {
+		int tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
+	}
+
 	private static <T> void swap(List<T> list, int i, int j) {
 		T tmp = list.get(i);
 		list.set(i, list.get(j));
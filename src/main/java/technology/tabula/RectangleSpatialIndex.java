@@ -1,47 +1,415 @@
 package technology.tabula;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
-import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.index.strtree.STRtree;
-
+/**
+ * A packed R-tree of Rectangles, bulk-loaded with the Sort-Tile-Recursive algorithm.
+ *
+ * The tree is built in one go, on the first query after rectangles have been added, and is
+ * kept in primitive arrays. It has the same layout as the JTS STRtree with its default node
+ * capacity, so queries return their hits in the same order that STRtree would.
+ *
+ * Like the STRtree, an index can be queried from several threads at once, but not while
+ * rectangles are being added to it.
+ */
 public class RectangleSpatialIndex<T extends Rectangle> {
-    
 
-    private final STRtree si = new STRtree();
-    private final List<T> rectangles = new ArrayList<>();
+    private static final int NODE_CAPACITY = 10;
+
+    private final List<T> rectangles;
+
+    // entries 0 .. rectangles.size() - 1 are the rectangles, the ones after them are the nodes of the tree
+    private float[] minX, minY, maxX, maxY;
+    private int entryCount;
+    // children of node k (entry rectangles.size() + k) are children[firstChild[k]] .. children[firstChild[k + 1] - 1]
+    private int[] firstChild;
+    private int[] children;
+    private int nodeCount;
+    private int childCount;
+    private int root;
+    private Rectangle bounds;
+    private volatile boolean built;
+    // the rectangles in the order a traversal of the tree meets them, made on demand
+    private int[] traversalOrder;
+
+    public RectangleSpatialIndex() {
+        rectangles = new ArrayList<>();
+    }
+
+    private RectangleSpatialIndex(Collection<? extends T> rectangles) {
+        this.rectangles = new ArrayList<>(rectangles);
+        build();
+    }
+
+    /**
+     * Builds the index of <code>rectangles</code> right away, instead of adding them one by one.
+     */
+    public static <T extends Rectangle> RectangleSpatialIndex<T> of(Collection<? extends T> rectangles) {
+        return new RectangleSpatialIndex<>(rectangles);
+    }
 
     public void add(T te) {
         rectangles.add(te);
-        si.insert(new Envelope(te.getLeft(), te.getRight(), te.getBottom(), te.getTop()), te);
+        built = false;
     }
-    
+
     public List<T> contains(Rectangle r) {
-        List<T> intersection = si.query(new Envelope(r.getLeft(), r.getRight(), r.getTop(), r.getBottom()));
-        List<T> rv = new ArrayList<T>();
+        return contains(r, new ArrayList<T>(), true);
+    }
 
-        for (T ir: intersection) {
-            if (r.contains(ir)) {
-                rv.add(ir);
+    /**
+     * Puts the rectangles contained in <code>r</code> into <code>rv</code>, replacing its contents,
+     * so that the same buffer can be used for many queries.
+     *
+     * @param sort whether to sort them in {@link Rectangle#ILL_DEFINED_ORDER}, like {@link #contains(Rectangle)} does
+     * @return rv
+     */
+    public List<T> contains(Rectangle r, List<T> rv, boolean sort) {
+        rv.clear();
+        if (prepareQuery()) {
+            collect(root, r, true, rv);
+        }
+        if (sort) {
+            Utils.sort(rv, Rectangle.ILL_DEFINED_ORDER);
+        }
+        return rv;
+    }
+
+    /**
+     * Calls <code>visitor</code> with each of the rectangles contained in <code>r</code>, in no particular order.
+     */
+    public void contains(Rectangle r, Consumer<? super T> visitor) {
+        if (prepareQuery()) {
+            visit(root, r, true, visitor);
+        }
+    }
+
+    /**
+     * The rectangles contained in each of <code>areas</code>, sorted like {@link #contains(Rectangle)} sorts them.
+     *
+     * Rather than one query per area, the rectangles and the areas are swept from top to bottom together,
+     * which is quicker when there are many areas, such as the cells of a table. The lists are the same
+     * as {@link #contains(Rectangle)} would give, in the same order.
+     */
+    public List<List<T>> contains(List<? extends Rectangle> areas) {
+        List<List<T>> rv = new ArrayList<>(areas.size());
+        for (int i = 0; i < areas.size(); i++) {
+            rv.add(new ArrayList<T>());
+        }
+        if (!prepareQuery() || areas.isEmpty()) {
+            return rv;
+        }
+        int n = rectangles.size();
+
+        int[] rectanglesByTop = new int[n];
+        float[] tops = new float[n];
+        for (int i = 0; i < n; i++) {
+            rectanglesByTop[i] = i;
+            tops[i] = rectangles.get(i).getTop();
+        }
+        QuickSort.sort(rectanglesByTop, (i, j) -> {
+            int compare = Float.compare(tops[i], tops[j]);
+            return compare != 0 ? compare : Integer.compare(i, j);
+        });
+        int[] areasByTop = new int[areas.size()];
+        double[] areaBottom = new double[areas.size()];
+        for (int i = 0; i < areasByTop.length; i++) {
+            areasByTop[i] = i;
+            areaBottom[i] = areas.get(i).getY() + areas.get(i).getHeight();
+        }
+        QuickSort.sort(areasByTop, (i, j) -> {
+            int compare = Double.compare(areas.get(i).getY(), areas.get(j).getY());
+            return compare != 0 ? compare : Integer.compare(i, j);
+        });
+
+        // rectangle i is in the areas firstArea[i] .. firstArea[i + 1] - 1 of containing
+        int[] areaCount = new int[n + 1];
+        int[] rectangleOf = new int[16], areaOf = new int[16];
+        int pairs = 0;
+        int[] active = new int[areasByTop.length];
+        int activeCount = 0, nextArea = 0;
+        for (int rectangle : rectanglesByTop) {
+            T r = rectangles.get(rectangle);
+            // a rectangle is only contained in areas that start above its top, and end below it
+            double top = tops[rectangle];
+            while (nextArea < areasByTop.length && areas.get(areasByTop[nextArea]).getY() <= top) {
+                active[activeCount++] = areasByTop[nextArea++];
             }
+            int kept = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int area = active[k];
+                if (areaBottom[area] < top) {
+                    continue;
+                }
+                active[kept++] = area;
+                if (areas.get(area).contains(r)) {
+                    if (pairs == rectangleOf.length) {
+                        rectangleOf = Arrays.copyOf(rectangleOf, pairs * 2);
+                        areaOf = Arrays.copyOf(areaOf, pairs * 2);
+                    }
+                    rectangleOf[pairs] = rectangle;
+                    areaOf[pairs] = area;
+                    pairs++;
+                    areaCount[rectangle + 1]++;
+                }
+            }
+            activeCount = kept;
+        }
+        for (int i = 0; i < n; i++) {
+            areaCount[i + 1] += areaCount[i];
+        }
+        int[] containing = new int[pairs];
+        int[] next = Arrays.copyOf(areaCount, n);
+        for (int i = 0; i < pairs; i++) {
+            containing[next[rectangleOf[i]]++] = areaOf[i];
         }
 
-        Utils.sort(rv, Rectangle.ILL_DEFINED_ORDER);
+        // in the order of the tree, which is the order contains(Rectangle) finds them in before sorting them
+        for (int rectangle : getTraversalOrder()) {
+            for (int k = areaCount[rectangle]; k < areaCount[rectangle + 1]; k++) {
+                rv.get(containing[k]).add(rectangles.get(rectangle));
+            }
+        }
+        for (List<T> contained : rv) {
+            Utils.sort(contained, Rectangle.ILL_DEFINED_ORDER);
+        }
         return rv;
     }
-    
+
     public List<T> intersects(Rectangle r) {
-      return si.query(new Envelope(r.getLeft(), r.getRight(), r.getTop(), r.getBottom()));
+        List<T> rv = new ArrayList<>();
+        if (prepareQuery()) {
+            collect(root, r, false, rv);
+        }
+        return rv;
+    }
+
+    /**
+     * Calls <code>visitor</code> with each of the rectangles that intersect <code>r</code>, in no particular order.
+     */
+    public void intersects(Rectangle r, Consumer<? super T> visitor) {
+        if (prepareQuery()) {
+            visit(root, r, false, visitor);
+        }
     }
-    
+
     /**
      * Minimum bounding box of all the Rectangles contained on this RectangleSpatialIndex
-     * 
+     *
      * @return a Rectangle
      */
     public Rectangle getBounds() {
-        return Rectangle.boundingBoxOf(rectangles);
+        ensureBuilt();
+        return new Rectangle(bounds.getTop(), bounds.getLeft(), (float) bounds.getWidth(), (float) bounds.getHeight());
+    }
+
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    /**
+     * Builds the tree if needed, and tells whether there's anything to look for in it.
+     */
+    private boolean prepareQuery() {
+        ensureBuilt();
+        return !rectangles.isEmpty();
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            build();
+        }
+    }
+
+    // the two traversals below are the same, one adds to a list and the other calls a visitor,
+    // so that none of the queries allocates anything but its result
+
+    private void collect(int node, Rectangle r, boolean contained, List<T> hits) {
+        int k = node - rectangles.size();
+        for (int i = firstChild[k]; i < firstChild[k + 1]; i++) {
+            int entry = children[i];
+            if (!intersects(entry, r)) {
+                continue;
+            }
+            if (entry >= rectangles.size()) {
+                collect(entry, r, contained, hits);
+            } else if (!contained || r.contains(rectangles.get(entry))) {
+                hits.add(rectangles.get(entry));
+            }
+        }
+    }
+
+    private void visit(int node, Rectangle r, boolean contained, Consumer<? super T> visitor) {
+        int k = node - rectangles.size();
+        for (int i = firstChild[k]; i < firstChild[k + 1]; i++) {
+            int entry = children[i];
+            if (!intersects(entry, r)) {
+                continue;
+            }
+            if (entry >= rectangles.size()) {
+                visit(entry, r, contained, visitor);
+            } else if (!contained || r.contains(rectangles.get(entry))) {
+                visitor.accept(rectangles.get(entry));
+            }
+        }
+    }
+
+    private synchronized int[] getTraversalOrder() {
+        if (traversalOrder == null) {
+            traversalOrder = new int[rectangles.size()];
+            int count = 0;
+            int[] stack = new int[64];
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int node = stack[--top];
+                if (node < rectangles.size()) {
+                    traversalOrder[count++] = node;
+                    continue;
+                }
+                int k = node - rectangles.size();
+                if (top + firstChild[k + 1] - firstChild[k] > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2 + NODE_CAPACITY);
+                }
+                // pushed last child first, so that the first child is visited first
+                for (int i = firstChild[k + 1] - 1; i >= firstChild[k]; i--) {
+                    stack[top++] = children[i];
+                }
+            }
+        }
+        return traversalOrder;
+    }
+
+    private boolean intersects(int entry, Rectangle r) {
+        float left = r.getLeft(), right = r.getRight(), top = r.getTop(), bottom = r.getBottom();
+        return Math.min(left, right) <= maxX[entry] && Math.max(left, right) >= minX[entry]
+                && Math.min(top, bottom) <= maxY[entry] && Math.max(top, bottom) >= minY[entry];
+    }
+
+    private synchronized void build() {
+        if (built) {
+            return;
+        }
+        int n = rectangles.size();
+        // a tree of n entries has less than n / (NODE_CAPACITY - 1) + (number of levels) * (slices per level) nodes
+        int capacity = n + n / (NODE_CAPACITY - 1) + 64;
+        minX = new float[capacity];
+        minY = new float[capacity];
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+        firstChild = new int[capacity - n + 1];
+        children = new int[capacity];
+        entryCount = n;
+        nodeCount = 0;
+        childCount = 0;
+
+        int[] level = new int[n];
+        for (int i = 0; i < n; i++) {
+            Rectangle r = rectangles.get(i);
+            minX[i] = Math.min(r.getLeft(), r.getRight());
+            minY[i] = Math.min(r.getTop(), r.getBottom());
+            maxX[i] = Math.max(r.getLeft(), r.getRight());
+            maxY[i] = Math.max(r.getTop(), r.getBottom());
+            level[i] = i;
+        }
+        bounds = Rectangle.boundingBoxOf(rectangles);
+        traversalOrder = null;
+
+        if (n > 0) {
+            do {
+                level = createParents(level);
+            } while (level.length > 1);
+            root = level[0];
+        }
+        // last, so that a query that sees the tree built sees all of it
+        built = true;
+    }
+
+    private int[] createParents(int[] level) {
+        int m = level.length;
+        int minLeafCount = (int) Math.ceil(m / (double) NODE_CAPACITY);
+        int sliceCount = (int) Math.ceil(Math.sqrt(minLeafCount));
+        int sliceCapacity = (int) Math.ceil(m / (double) sliceCount);
+
+        int[] sorted = level.clone();
+        int[] buffer = new int[m];
+        sortByCentre(sorted, buffer, 0, m, minX, maxX);
+
+        int[] parents = new int[m];
+        int parentCount = 0;
+        for (int from = 0; from < m; from += sliceCapacity) {
+            int to = Math.min(m, from + sliceCapacity);
+            sortByCentre(sorted, buffer, from, to, minY, maxY);
+            for (int i = from; i < to; i += NODE_CAPACITY) {
+                parents[parentCount++] = createNode(sorted, i, Math.min(to, i + NODE_CAPACITY));
+            }
+        }
+        return Arrays.copyOf(parents, parentCount);
+    }
+
+    private int createNode(int[] entries, int from, int to) {
+        if (entryCount == minX.length) {
+            int capacity = minX.length * 2;
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity - rectangles.size() + 1);
+        }
+        if (childCount + to - from > children.length) {
+            children = Arrays.copyOf(children, children.length * 2 + to - from);
+        }
+
+        int node = entryCount++;
+        float nodeMinX = Float.POSITIVE_INFINITY, nodeMinY = Float.POSITIVE_INFINITY;
+        float nodeMaxX = Float.NEGATIVE_INFINITY, nodeMaxY = Float.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int entry = entries[i];
+            children[childCount++] = entry;
+            nodeMinX = Math.min(nodeMinX, minX[entry]);
+            nodeMinY = Math.min(nodeMinY, minY[entry]);
+            nodeMaxX = Math.max(nodeMaxX, maxX[entry]);
+            nodeMaxY = Math.max(nodeMaxY, maxY[entry]);
+        }
+        minX[node] = nodeMinX;
+        minY[node] = nodeMinY;
+        maxX[node] = nodeMaxX;
+        maxY[node] = nodeMaxY;
+        nodeCount++;
+        firstChild[nodeCount] = childCount;
+        return node;
+    }
+
+    /**
+     * Stable merge sort of <code>entries[from..to)</code> by the centre of their [min, max] extents.
+     * Stability matters: entries with the same centre keep their order, as in the JTS STRtree.
+     */
+    private static void sortByCentre(int[] entries, int[] buffer, int from, int to, float[] min, float[] max) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByCentre(entries, buffer, from, middle, min, max);
+        sortByCentre(entries, buffer, middle, to, min, max);
+        if (centre(entries[middle - 1], min, max) <= centre(entries[middle], min, max)) {
+            return;
+        }
+        System.arraycopy(entries, from, buffer, from, to - from);
+        int i = from, j = middle, k = from;
+        while (i < middle && j < to) {
+            entries[k++] = centre(buffer[j], min, max) < centre(buffer[i], min, max) ? buffer[j++] : buffer[i++];
+        }
+        while (i < middle) {
+            entries[k++] = buffer[i++];
+        }
+        while (j < to) {
+            entries[k++] = buffer[j++];
+        }
+    }
+
+    private static double centre(int entry, float[] min, float[] max) {
+        return ((double) min[entry] + (double) max[entry]) / 2d;
     }
 
 }
@@ -15,9 +15,8 @@ import java.util.TreeMap;
 @SuppressWarnings("serial")
 public class Ruling extends Line2D.Float {
     
-    private static int PERPENDICULAR_PIXEL_EXPAND_AMOUNT = 2;
+    static final int PERPENDICULAR_PIXEL_EXPAND_AMOUNT = 2;
     private static int COLINEAR_OR_PARALLEL_PIXEL_EXPAND_AMOUNT = 1;
-    private enum SOType { VERTICAL, HRIGHT, HLEFT }
 
     public Ruling(float top, float left, float width, float height) {
         this(new Point2D.Float(left, top), new Point2D.Float(left+width, top+height));
@@ -301,28 +300,9 @@ public class Ruling extends Line2D.Float {
     
     // log(n) implementation of find_intersections
     // based on http://people.csail.mit.edu/indyk/6.838-old/handouts/lec2.pdf
+    // see RulingIntersections for the sweep itself
     public static Map<Point2D, Ruling[]> findIntersections(List<Ruling> horizontals, List<Ruling> verticals) {
         
-        class SortObject {
-            protected SOType type;
-            protected float position;
-            protected Ruling ruling;
-            
-            public SortObject(SOType type, float position, Ruling ruling) {
-                this.type = type;
-                this.position = position;
-                this.ruling = ruling;
-            }
-        }
-        
-        List<SortObject> sos = new ArrayList<>();
-        
-        TreeMap<Ruling, Boolean> tree = new TreeMap<>(new Comparator<Ruling>() {
-            @Override
-            public int compare(Ruling o1, Ruling o2) {
-                return java.lang.Double.compare(o1.getTop(), o2.getTop());
-            }});
-        
         TreeMap<Point2D, Ruling[]> rv = new TreeMap<>(new Comparator<Point2D>() {
             @Override
             public int compare(Point2D o1, Point2D o2) {
@@ -334,63 +314,13 @@ public class Ruling extends Line2D.Float {
             }
         });
         
-        for (Ruling h : horizontals) {
-            sos.add(new SortObject(SOType.HLEFT, h.getLeft() - PERPENDICULAR_PIXEL_EXPAND_AMOUNT, h));
-            sos.add(new SortObject(SOType.HRIGHT, h.getRight() + PERPENDICULAR_PIXEL_EXPAND_AMOUNT, h));
-        }
-
-        for (Ruling v : verticals) {
-            sos.add(new SortObject(SOType.VERTICAL, v.getLeft(), v));
-        }
-        
-        Collections.sort(sos, new Comparator<SortObject>() {
-            @Override
-            public int compare(SortObject a, SortObject b) {
-                int rv;
-                if (Utils.feq(a.position, b.position)) {
-                    if (a.type == SOType.VERTICAL && b.type == SOType.HLEFT) {
-                       rv = 1;     
-                    }
-                    else if (a.type == SOType.VERTICAL && b.type == SOType.HRIGHT) {
-                       rv = -1;
-                    }
-                    else if (a.type == SOType.HLEFT && b.type == SOType.VERTICAL) {
-                       rv = -1;
-                    }
-                    else if (a.type == SOType.HRIGHT && b.type == SOType.VERTICAL) {
-                       rv = 1;
-                     }
-                    else {
-                       rv = java.lang.Double.compare(a.position, b.position);
-                    }
-                }
-                else {
-                    return java.lang.Double.compare(a.position, b.position);
-                }
-                return rv;
-            }
-        });
-        
-        for (SortObject so : sos) {
-            switch(so.type) {
-            case VERTICAL:
-                for (Map.Entry<Ruling, Boolean> h : tree.entrySet()) {
-                    Point2D i = h.getKey().intersectionPoint(so.ruling);
-                    if (i == null) {
-                        continue;
-                    }
-                    rv.put(i, 
-                           new Ruling[] { h.getKey().expand(PERPENDICULAR_PIXEL_EXPAND_AMOUNT), 
-                                          so.ruling.expand(PERPENDICULAR_PIXEL_EXPAND_AMOUNT) });
-                }
-                break;
-            case HRIGHT:
-                tree.remove(so.ruling);
-                break;
-            case HLEFT:
-                tree.put(so.ruling, true);
-                break;
-            }
+        RulingIntersections intersections = RulingIntersections.find(horizontals, verticals);
+        for (int i = 0; i < intersections.size(); i++) {
+            Ruling h = horizontals.get(intersections.getHorizontalIndex(i));
+            Ruling v = verticals.get(intersections.getVerticalIndex(i));
+            rv.put(new Point2D.Float(intersections.getX(i), intersections.getY(i)),
+                   new Ruling[] { h.expand(PERPENDICULAR_PIXEL_EXPAND_AMOUNT),
+                                  v.expand(PERPENDICULAR_PIXEL_EXPAND_AMOUNT) });
         }
         
         return rv;
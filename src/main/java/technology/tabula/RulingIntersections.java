@@ -0,0 +1,311 @@
+package technology.tabula;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The intersections of horizontal and vertical rulings, found with a sweep over x.
+ *
+ * The horizontals that the sweep line crosses are kept in a set ordered by y, and each vertical
+ * only looks at the ones within its own y-extent, so finding the intersections takes
+ * O((h + v) log(h + v) + k) for k intersections rather than O(h * v).
+ *
+ * Intersection <code>i</code> is the point (<code>getX(i)</code>, <code>getY(i)</code>), where
+ * horizontal <code>getHorizontalIndex(i)</code> and vertical <code>getVerticalIndex(i)</code> cross
+ * once both are expanded by {@link Ruling#PERPENDICULAR_PIXEL_EXPAND_AMOUNT}. Intersections are
+ * ordered by y, then x, and when several pairs of rulings cross at the same point, the last one
+ * the sweep met is kept, as {@link Ruling#findIntersections(List, List)} has always done.
+ *
+ * Rulings also get ids, equal for rulings that are equal once expanded, which is how the
+ * expanded rulings in the map of {@link Ruling#findIntersections(List, List)} compare.
+ */
+public final class RulingIntersections {
+
+    private enum EventType { VERTICAL, HRIGHT, HLEFT }
+
+    private static final class Event {
+        final EventType type;
+        final float position;
+        final int ruling;
+
+        Event(EventType type, float position, int ruling) {
+            this.type = type;
+            this.position = position;
+            this.ruling = ruling;
+        }
+    }
+
+    private final float[] x, y;
+    private final int[] horizontal, vertical;
+    private final int size;
+    private final List<Ruling> horizontals, verticals;
+    private int[] horizontalIds, verticalIds;
+
+    private RulingIntersections(float[] x, float[] y, int[] horizontal, int[] vertical, int size,
+                                List<Ruling> horizontals, List<Ruling> verticals) {
+        this.x = x;
+        this.y = y;
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+        this.size = size;
+        this.horizontals = horizontals;
+        this.verticals = verticals;
+    }
+
+    /**
+     * Finds the intersections of <code>horizontals</code> with <code>verticals</code>,
+     * which must be horizontal and vertical rulings respectively.
+     */
+    public static RulingIntersections find(List<Ruling> horizontals, List<Ruling> verticals) {
+        float expand = Ruling.PERPENDICULAR_PIXEL_EXPAND_AMOUNT;
+
+        // horizontals, ranked by y, so that the active ones are a set of ranks
+        int[] byY = new int[horizontals.size()];
+        for (int i = 0; i < byY.length; i++) {
+            byY[i] = i;
+        }
+        QuickSort.sort(byY, (i, j) -> {
+            int rv = Float.compare(horizontals.get(i).getTop(), horizontals.get(j).getTop());
+            return rv != 0 ? rv : Integer.compare(i, j);
+        });
+        float[] yByRank = new float[byY.length];
+        int[] rankOf = new int[byY.length];
+        for (int rank = 0; rank < byY.length; rank++) {
+            yByRank[rank] = horizontals.get(byY[rank]).getTop();
+            rankOf[byY[rank]] = rank;
+        }
+
+        List<Event> events = new ArrayList<>(horizontals.size() * 2 + verticals.size());
+        for (int i = 0; i < horizontals.size(); i++) {
+            Ruling h = horizontals.get(i);
+            events.add(new Event(EventType.HLEFT, h.getLeft() - expand, i));
+            events.add(new Event(EventType.HRIGHT, h.getRight() + expand, i));
+        }
+        for (int i = 0; i < verticals.size(); i++) {
+            events.add(new Event(EventType.VERTICAL, verticals.get(i).getLeft(), i));
+        }
+        Collections.sort(events, (a, b) -> {
+            if (Utils.feq(a.position, b.position)) {
+                if (a.type == EventType.VERTICAL && b.type == EventType.HLEFT) {
+                    return 1;
+                }
+                if (a.type == EventType.VERTICAL && b.type == EventType.HRIGHT) {
+                    return -1;
+                }
+                if (a.type == EventType.HLEFT && b.type == EventType.VERTICAL) {
+                    return -1;
+                }
+                if (a.type == EventType.HRIGHT && b.type == EventType.VERTICAL) {
+                    return 1;
+                }
+            }
+            return Double.compare(a.position, b.position);
+        });
+
+        BitSet active = new BitSet(byY.length);
+        int[] hitH = new int[16], hitV = new int[16];
+        int hits = 0;
+        for (Event event : events) {
+            switch (event.type) {
+            case HLEFT:
+                active.set(rankOf[event.ruling]);
+                break;
+            case HRIGHT:
+                active.clear(rankOf[event.ruling]);
+                break;
+            case VERTICAL:
+                Ruling v = verticals.get(event.ruling);
+                float vTop = v.getTop() - expand, vBottom = v.getBottom() + expand;
+                // a little wider than the expanded vertical, the exact test is done below
+                int from = firstRankAtOrAbove(yByRank, Math.min(vTop, vBottom) - 1);
+                int to = firstRankAtOrAbove(yByRank, Math.nextUp(Math.max(vTop, vBottom) + 1));
+                for (int rank = active.nextSetBit(from); rank >= 0 && rank < to; rank = active.nextSetBit(rank + 1)) {
+                    Ruling h = horizontals.get(byY[rank]);
+                    if (!Line2D.linesIntersect(v.getLeft(), vTop, v.getRight(), vBottom,
+                            h.getLeft() - expand, h.getTop(), h.getRight() + expand, h.getBottom())) {
+                        continue;
+                    }
+                    if (hits == hitH.length) {
+                        hitH = Arrays.copyOf(hitH, hits * 2);
+                        hitV = Arrays.copyOf(hitV, hits * 2);
+                    }
+                    hitH[hits] = rank;
+                    hitV[hits] = event.ruling;
+                    hits++;
+                }
+                break;
+            }
+        }
+
+        return fromHits(horizontals, verticals, byY, yByRank, hitH, hitV, hits);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public float getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * @return the index, in the list of horizontals, of the horizontal ruling of intersection <code>i</code>
+     */
+    public int getHorizontalIndex(int i) {
+        return horizontal[i];
+    }
+
+    /**
+     * @return the index, in the list of verticals, of the vertical ruling of intersection <code>i</code>
+     */
+    public int getVerticalIndex(int i) {
+        return vertical[i];
+    }
+
+    /**
+     * @return the id of the horizontal ruling of intersection <code>i</code>, the same for all the
+     * horizontals that are equal once expanded
+     */
+    public int getHorizontalId(int i) {
+        if (horizontalIds == null) {
+            horizontalIds = idsOf(horizontals);
+        }
+        return horizontalIds[horizontal[i]];
+    }
+
+    /**
+     * @return the id of the vertical ruling of intersection <code>i</code>, the same for all the
+     * verticals that are equal once expanded
+     */
+    public int getVerticalId(int i) {
+        if (verticalIds == null) {
+            verticalIds = idsOf(verticals);
+        }
+        return verticalIds[vertical[i]];
+    }
+
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    /**
+     * Gives each ruling the index of the first ruling that has the same end points once expanded.
+     */
+    private static int[] idsOf(List<Ruling> rulings) {
+        int n = rulings.size();
+        // adding 0 turns -0.0 into 0.0, which Ruling.equals doesn't tell apart
+        float[] x1 = new float[n], y1 = new float[n], x2 = new float[n], y2 = new float[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            Ruling expanded = rulings.get(i).expand(Ruling.PERPENDICULAR_PIXEL_EXPAND_AMOUNT);
+            x1[i] = expanded.x1 + 0f;
+            y1[i] = expanded.y1 + 0f;
+            x2[i] = expanded.x2 + 0f;
+            y2[i] = expanded.y2 + 0f;
+            order[i] = i;
+        }
+        QuickSort.sort(order, (i, j) -> {
+            int rv = Float.compare(x1[i], x1[j]);
+            if (rv == 0) rv = Float.compare(y1[i], y1[j]);
+            if (rv == 0) rv = Float.compare(x2[i], x2[j]);
+            if (rv == 0) rv = Float.compare(y2[i], y2[j]);
+            return rv != 0 ? rv : Integer.compare(i, j);
+        });
+        int[] ids = new int[n];
+        for (int k = 0; k < n; k++) {
+            int i = order[k], previous = k > 0 ? order[k - 1] : -1;
+            boolean same = previous >= 0 && x1[i] == x1[previous] && y1[i] == y1[previous]
+                    && x2[i] == x2[previous] && y2[i] == y2[previous];
+            ids[i] = same ? ids[previous] : i;
+        }
+        return ids;
+    }
+
+    /**
+     * Orders the hits by point, and keeps one per point: the coordinates of the first hit
+     * and the rulings of the last one, like putting them one by one in a TreeMap would.
+     *
+     * Hits are bucketed by y, keeping the order of the sweep within a bucket, which is
+     * already the order of x but for the few verticals that the sweep met out of order.
+     */
+    private static RulingIntersections fromHits(List<Ruling> horizontals, List<Ruling> verticals, int[] byY, float[] yByRank, int[] hitRank, int[] hitV, int hits) {
+        // ranks of horizontals at the same y share a bucket
+        int[] bucketOf = new int[yByRank.length];
+        for (int rank = 1; rank < yByRank.length; rank++) {
+            bucketOf[rank] = bucketOf[rank - 1] + (yByRank[rank] == yByRank[rank - 1] ? 0 : 1);
+        }
+        int[] bucketStart = new int[yByRank.length + 1];
+        for (int i = 0; i < hits; i++) {
+            bucketStart[bucketOf[hitRank[i]] + 1]++;
+        }
+        for (int b = 0; b < yByRank.length; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] order = new int[hits];
+        int[] next = Arrays.copyOf(bucketStart, bucketStart.length);
+        float[] hitX = new float[hits];
+        for (int i = 0; i < hits; i++) {
+            hitX[i] = verticals.get(hitV[i]).getLeft();
+            order[next[bucketOf[hitRank[i]]]++] = i;
+        }
+
+        float[] x = new float[hits], y = new float[hits];
+        int[] horizontal = new int[hits], vertical = new int[hits];
+        int size = 0;
+        for (int b = 0; b < yByRank.length; b++) {
+            int from = bucketStart[b], to = bucketStart[b + 1];
+            sortByX(order, from, to, hitX);
+            for (int i = from; i < to; ) {
+                int first = order[i], last = first;
+                for (i++; i < to && !(hitX[order[i]] > hitX[first]); i++) {
+                    last = order[i];
+                }
+                x[size] = hitX[first];
+                y[size] = yByRank[hitRank[first]];
+                horizontal[size] = byY[hitRank[last]];
+                vertical[size] = hitV[last];
+                size++;
+            }
+        }
+        return new RulingIntersections(x, y, horizontal, vertical, size, horizontals, verticals);
+    }
+
+    /**
+     * Sorts <code>order[from..to)</code> by x, then by hit, unless it's sorted already.
+     */
+    private static void sortByX(int[] order, int from, int to, float[] hitX) {
+        int i = from + 1;
+        while (i < to && !(hitX[order[i - 1]] > hitX[order[i]])) {
+            i++;
+        }
+        if (i >= to) {
+            return;
+        }
+        int[] bucket = Arrays.copyOfRange(order, from, to);
+        QuickSort.sort(bucket, (a, b) -> {
+            if (hitX[a] > hitX[b]) return  1;
+            if (hitX[a] < hitX[b]) return -1;
+            return Integer.compare(a, b);
+        });
+        System.arraycopy(bucket, 0, order, from, bucket.length);
+    }
+
+    private static int firstRankAtOrAbove(float[] yByRank, float y) {
+        int low = 0, high = yByRank.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (yByRank[middle] < y) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+}
@@ -1,6 +1,7 @@
 package technology.tabula;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -24,7 +25,7 @@ public class Table extends Rectangle {
 	private int rowCount = 0;
 	private int colCount = 0;
 
-	/* visible for testing */ final TreeMap<CellPosition, RectangularTextContainer> cells = new TreeMap<>();
+	/* visible for testing */ final CellStore<RectangularTextContainer> cells = new CellStore<>();
 
 	public int getRowCount() { return rowCount; }
 	public int getColCount() { return colCount; }
@@ -37,11 +38,9 @@ public class Table extends Rectangle {
 		rowCount = Math.max(rowCount, row + 1);
 		colCount = Math.max(colCount, col + 1);
 		
-		CellPosition cp = new CellPosition(row, col);
-		
-		RectangularTextContainer old = cells.get(cp);
+		RectangularTextContainer old = cells.get(row, col);
 		if (old != null) chunk.merge(old);
-		cells.put(cp, chunk);
+		cells.put(row, col, chunk);
 
 		this.memoizedRows = null;
 	}
@@ -59,20 +58,108 @@ public class Table extends Rectangle {
 			List<RectangularTextContainer> lastRow = new ArrayList<>();
 			rows.add(lastRow);
 			for (int j = 0; j < colCount; j++) {
-				RectangularTextContainer cell = cells.get(new CellPosition(i,j)); // JAVA_8 use getOrDefault()
-				lastRow.add(cell != null ? cell : TextChunk.EMPTY);
+				lastRow.add(getCell(i, j));
 			}
 		}
 		return rows;
 	}
-	
+
 	public RectangularTextContainer getCell(int i, int j) {
-		RectangularTextContainer cell = cells.get(new CellPosition(i,j)); // JAVA_8 use getOrDefault()
+		RectangularTextContainer cell = cells.get(i, j);
 		return cell != null ? cell : TextChunk.EMPTY;
 	}
 
 }
 
+/**
+ * The cells of a table, in an array per row, indexed by column, so that looking a cell up
+ * allocates nothing. Tables so ragged that the arrays would be mostly empty keep their cells
+ * in a TreeMap instead.
+ */
+final class CellStore<T> {
+
+	private static final int MIN_DENSE_CAPACITY = 1 << 12;
+	private static final int MAX_EMPTY_SLOTS_PER_CELL = 8;
+
+	private Object[][] rows = new Object[0][];
+	private long slots;
+	private int size;
+	private TreeMap<CellPosition, T> sparse;
+
+	@SuppressWarnings("unchecked") // only put() stores in the arrays, and only values of T
+	T get(int row, int col) {
+		if (sparse != null) {
+			return sparse.get(new CellPosition(row, col));
+		}
+		if (row < 0 || row >= rows.length || rows[row] == null || col < 0 || col >= rows[row].length) {
+			return null;
+		}
+		return (T) rows[row][col];
+	}
+
+	void put(int row, int col, T chunk) {
+		if (sparse == null && !fitsDense(row, col)) {
+			TreeMap<CellPosition, T> cells = new TreeMap<>();
+			for (int i = 0; i < rows.length; i++) {
+				for (int j = 0; rows[i] != null && j < rows[i].length; j++) {
+					if (rows[i][j] != null) cells.put(new CellPosition(i, j), get(i, j));
+				}
+			}
+			sparse = cells;
+			rows = null;
+		}
+		if (sparse != null) {
+			sparse.put(new CellPosition(row, col), chunk);
+			return;
+		}
+
+		if (row >= rows.length) {
+			int length = Math.max(row + 1, rows.length * 2);
+			slots += length - rows.length;
+			rows = Arrays.copyOf(rows, length);
+		}
+		Object[] cells = rows[row];
+		if (cells == null || col >= cells.length) {
+			int length = Math.max(col + 1, cells == null ? 0 : cells.length * 2);
+			slots += length - (cells == null ? 0 : cells.length);
+			rows[row] = cells = cells == null ? new Object[length] : Arrays.copyOf(cells, length);
+		}
+		if (cells[col] == null) size++;
+		cells[col] = chunk;
+	}
+
+	/**
+	 * @return the cells, ordered by row, then column
+	 */
+	List<T> values() {
+		if (sparse != null) {
+			return new ArrayList<>(sparse.values());
+		}
+		List<T> rv = new ArrayList<>(size);
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; rows[i] != null && j < rows[i].length; j++) {
+				if (rows[i][j] != null) rv.add(get(i, j));
+			}
+		}
+		return rv;
+	}
+
+	/**
+	 * Whether the arrays can hold a cell at (<code>row</code>, <code>col</code>) without
+	 * being mostly empty.
+	 */
+	private boolean fitsDense(int row, int col) {
+		if (row < 0 || col < 0) {
+			return false;
+		}
+		long needed = slots + Math.max(0, row + 1 - rows.length);
+		Object[] cells = row < rows.length ? rows[row] : null;
+		needed += Math.max(0, col + 1 - (cells == null ? 0 : cells.length));
+		return needed <= MIN_DENSE_CAPACITY || needed <= (long) (size + 1) * MAX_EMPTY_SLOTS_PER_CELL;
+	}
+
+}
+
 class CellPosition implements Comparable<CellPosition> {
 
 	CellPosition(int row, int col) {
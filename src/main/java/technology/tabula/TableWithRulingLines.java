@@ -12,7 +12,6 @@ import technology.tabula.extractors.ExtractionAlgorithm;
 public class TableWithRulingLines extends Table {
 
     List<Ruling> verticalRulings, horizontalRulings;
-    RectangleSpatialIndex<Cell> si = new RectangleSpatialIndex<>();
     
     public TableWithRulingLines(Rectangle area, List<Cell> cells, List<Ruling> horizontalRulings, List<Ruling> verticalRulings, ExtractionAlgorithm extractionAlgorithm) {
         super(extractionAlgorithm);
@@ -28,24 +27,19 @@ public class TableWithRulingLines extends Table {
             return;
         } 
         
-        for (Cell ce: cells) {
-            si.add(ce);
-        }
+        // as a RectangleSpatialIndex of the cells would give them
+        Rectangle boundingBox = Rectangle.boundingBoxOf(cells);
+        Rectangle bounds = new Rectangle(boundingBox.getTop(), boundingBox.getLeft(), (float) boundingBox.getWidth(), (float) boundingBox.getHeight());
         
+        // also sorts the cells by top
         List<List<Cell>> rowsOfCells = rowsOfCells(cells);
         for (int i = 0; i < rowsOfCells.size(); i++) {
             List<Cell> row = rowsOfCells.get(i);
             Iterator<Cell> rowCells = row.iterator();
             Cell cell = rowCells.next();
-            List<List<Cell>> others = rowsOfCells(
-                    si.contains(
-                            new Rectangle(cell.getBottom(), si.getBounds().getLeft(), cell.getLeft() - si.getBounds().getLeft(), 
-                                    si.getBounds().getBottom() - cell.getBottom())
-                            ));
-            int startColumn = 0;
-            for (List<Cell> r: others) {
-                startColumn = Math.max(startColumn, r.size());
-            }
+            int startColumn = longestRowOfCellsIn(cells,
+                    new Rectangle(cell.getBottom(), bounds.getLeft(), cell.getLeft() - bounds.getLeft(), 
+                            bounds.getBottom() - cell.getBottom()));
             this.add(cell, i, startColumn++);
             while (rowCells.hasNext()) {
                 this.add(rowCells.next(), i, startColumn++);
@@ -53,6 +47,35 @@ public class TableWithRulingLines extends Table {
         }
     }
     
+    /**
+     * The size of the longest of the rows that {@link #rowsOfCells(List)} makes of the cells
+     * contained in <code>area</code>, <code>cells</code> being sorted by top.
+     */
+    private static int longestRowOfCellsIn(List<Cell> cells, Rectangle area) {
+        // the cells that start above the area can't be in it
+        int low = 0, high = cells.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cells.get(middle).getTop() < area.getTop()) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int rv = 0, rowSize = 0;
+        float lastTop = 0;
+        for (int i = low; i < cells.size(); i++) {
+            Cell c = cells.get(i);
+            if (!area.contains(c)) {
+                continue;
+            }
+            rowSize = rowSize > 0 && Utils.feq(c.getTop(), lastTop) ? rowSize + 1 : 1;
+            lastTop = c.getTop();
+            rv = Math.max(rv, rowSize);
+        }
+        return rv;
+    }
+    
     private static List<List<Cell>> rowsOfCells(List<Cell> cells) {
         Cell c;
         float lastTop;
@@ -0,0 +1,200 @@
+package technology.tabula;
+
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.OperatorProcessor;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+/**
+ * A {@link TextStripper} that also collects the {@link Ruling}s of the page, so that
+ * text and rulings come out of a single pass over the content stream instead of one
+ * pass through TextStripper and another one through ObjectExtractorStreamEngine.
+ *
+ * Path operators are handled the same way PDFGraphicsStreamEngine handles them,
+ * and forwarded to a {@link RulingCollector}.
+ */
+class TextAndRulingStripper extends TextStripper {
+
+    private static final String[] PATH_OPERATORS = {
+            "m", "l", "c", "v", "y", "h", "re",
+            "S", "s", "f", "F", "f*", "B", "B*", "b", "b*", "n", "W", "W*"
+    };
+
+    private RulingCollector rulingCollector;
+    private int type3GlyphLevel = 0;
+
+    TextAndRulingStripper(PDDocument document, int pageNumber) throws IOException {
+        super(document, pageNumber);
+        for (String name : PATH_OPERATORS) {
+            addOperator(new PathOperator(name));
+        }
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        rulingCollector = new RulingCollector(page);
+        super.startPage(page);
+    }
+
+    @Override
+    protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, String unicode, Vector displacement) throws IOException {
+        // glyphs of type 3 fonts are content streams of their own, which may paint rulings
+        // (PDFGraphicsStreamEngine looks at them), but their contents are never text
+        if (type3GlyphLevel == 0) {
+            super.showGlyph(textRenderingMatrix, font, code, unicode, displacement);
+        }
+        if (font instanceof PDType3Font) {
+            type3GlyphLevel++;
+            try {
+                showType3Glyph(textRenderingMatrix, (PDType3Font) font, code, displacement);
+            } finally {
+                type3GlyphLevel--;
+            }
+        }
+    }
+
+    public List<Ruling> getRulings() {
+        return rulingCollector == null ? new ArrayList<Ruling>() : rulingCollector.getRulings();
+    }
+
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    private void processPathOperator(String name, List<COSBase> operands) throws IOException {
+        Point2D current;
+        Point2D.Float p1, p2, p3;
+        switch (name) {
+            case "m":
+                if (!isNumeric(operands, 2)) return;
+                p1 = transformedPoint(operands, 0);
+                rulingCollector.moveTo(p1.x, p1.y);
+                break;
+            case "l":
+                if (!isNumeric(operands, 2)) return;
+                p1 = transformedPoint(operands, 0);
+                if (rulingCollector.getCurrentPoint() == null) {
+                    rulingCollector.moveTo(p1.x, p1.y);
+                } else {
+                    rulingCollector.lineTo(p1.x, p1.y);
+                }
+                break;
+            case "c":
+                if (!isNumeric(operands, 6)) return;
+                p1 = transformedPoint(operands, 0);
+                p2 = transformedPoint(operands, 2);
+                p3 = transformedPoint(operands, 4);
+                if (rulingCollector.getCurrentPoint() == null) {
+                    rulingCollector.moveTo(p3.x, p3.y);
+                } else {
+                    rulingCollector.curveTo(p1.x, p1.y, p2.x, p2.y, p3.x, p3.y);
+                }
+                break;
+            case "v":
+                if (!isNumeric(operands, 4)) return;
+                current = rulingCollector.getCurrentPoint();
+                p2 = transformedPoint(operands, 0);
+                p3 = transformedPoint(operands, 2);
+                if (current == null) {
+                    rulingCollector.moveTo(p3.x, p3.y);
+                } else {
+                    rulingCollector.curveTo((float) current.getX(), (float) current.getY(), p2.x, p2.y, p3.x, p3.y);
+                }
+                break;
+            case "y":
+                if (!isNumeric(operands, 4)) return;
+                p1 = transformedPoint(operands, 0);
+                p3 = transformedPoint(operands, 2);
+                rulingCollector.curveTo(p1.x, p1.y, p3.x, p3.y, p3.x, p3.y);
+                break;
+            case "h":
+                if (rulingCollector.getCurrentPoint() != null) {
+                    rulingCollector.closePath();
+                }
+                break;
+            case "re":
+                if (!isNumeric(operands, 4)) return;
+                float x = ((COSNumber) operands.get(0)).floatValue();
+                float y = ((COSNumber) operands.get(1)).floatValue();
+                float w = ((COSNumber) operands.get(2)).floatValue() + x;
+                float h = ((COSNumber) operands.get(3)).floatValue() + y;
+                rulingCollector.appendRectangle(transformedPoint(x, y), transformedPoint(w, y),
+                        transformedPoint(w, h), transformedPoint(x, h));
+                break;
+            case "S":
+                rulingCollector.strokeOrFillPath(getGraphicsState(), false);
+                break;
+            case "s":
+                processPathOperator("h", operands);
+                processPathOperator("S", operands);
+                break;
+            case "f":
+            case "F":
+            case "f*":
+            case "B":
+            case "B*":
+                rulingCollector.strokeOrFillPath(getGraphicsState(), true);
+                break;
+            case "b":
+            case "b*":
+                processPathOperator("h", operands);
+                rulingCollector.strokeOrFillPath(getGraphicsState(), true);
+                break;
+            case "n":
+                rulingCollector.endPath(getGraphicsState());
+                break;
+            case "W":
+                rulingCollector.clip(GeneralPath.WIND_NON_ZERO);
+                break;
+            case "W*":
+                rulingCollector.clip(GeneralPath.WIND_EVEN_ODD);
+                break;
+        }
+    }
+
+    private Point2D.Float transformedPoint(List<COSBase> operands, int index) {
+        return transformedPoint(((COSNumber) operands.get(index)).floatValue(),
+                ((COSNumber) operands.get(index + 1)).floatValue());
+    }
+
+    private static boolean isNumeric(List<COSBase> operands, int count) {
+        if (operands.size() < count) {
+            return false;
+        }
+        for (COSBase operand : operands) {
+            if (!(operand instanceof COSNumber)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class PathOperator extends OperatorProcessor {
+
+        private final String name;
+
+        PathOperator(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void process(Operator operator, List<COSBase> operands) throws IOException {
+            ((TextAndRulingStripper) getContext()).processPathOperator(name, operands);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+}
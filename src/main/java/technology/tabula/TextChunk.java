@@ -126,6 +126,27 @@ public class TextChunk extends RectangularTextContainer<TextElement> {
         return new TextChunk(everything);
     }
 
+    /**
+     * Whether any character is right to left, or a segment separator, which
+     * {@link #groupByDirectionality(Boolean)} also takes as right to left.
+     */
+    boolean hasRightToLeftCharacters() {
+        for (TextElement te : this.getTextElements()) {
+            String text = te.getText();
+            for (int j = 0; j < text.length(); j++) {
+                byte dir = Character.getDirectionality(text.charAt(j));
+                if ((dir == Character.DIRECTIONALITY_RIGHT_TO_LEFT) ||
+                        (dir == Character.DIRECTIONALITY_RIGHT_TO_LEFT_ARABIC) ||
+                        (dir == Character.DIRECTIONALITY_RIGHT_TO_LEFT_EMBEDDING) ||
+                        (dir == Character.DIRECTIONALITY_RIGHT_TO_LEFT_OVERRIDE) ||
+                        (dir == Character.DIRECTIONALITY_SEGMENT_SEPARATOR)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override public int isLtrDominant() {
         int ltrCnt = 0;
         int rtlCnt = 0;
@@ -1,6 +1,7 @@
 package technology.tabula;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.pdfbox.pdmodel.font.PDFont;
@@ -106,7 +107,11 @@ public class TextElement extends Rectangle implements HasText {
     }
 
     public static List<TextChunk> mergeWords(List<TextElement> textElements) {
-        return mergeWords(textElements, new ArrayList<Ruling>());
+        return mergeWords(textElements, VerticalRulingIndex.EMPTY);
+    }
+
+    public static List<TextChunk> mergeWords(List<TextElement> textElements, List<Ruling> verticalRulings) {
+        return mergeWords(textElements, new VerticalRulingIndex(verticalRulings));
     }
 
     /**
@@ -114,7 +119,7 @@ public class TextElement extends Rectangle implements HasText {
      * ported from from PDFBox's PDFTextStripper.writePage, with modifications.
      * Here be dragons
      */
-    public static List<TextChunk> mergeWords(List<TextElement> textElements, List<Ruling> verticalRulings) {
+    public static List<TextChunk> mergeWords(List<TextElement> textElements, VerticalRulingIndex verticalRulings) {
 
         List<TextChunk> textChunks = new ArrayList<>();
 
@@ -122,12 +127,11 @@ public class TextElement extends Rectangle implements HasText {
             return textChunks;
         }
 
-        // it's a problem that this `remove` is side-effecty
-        // other things depend on `textElements` and it can sometimes lead to the first textElement in textElement
-        // not appearing in the final output because it's been removed here.
+        // textElements isn't changed: other things depend on it, and removing the first one here
+        // used to make it disappear from the final output.
         // https://github.com/tabulapdf/tabula-java/issues/78
-        List<TextElement> copyOfTextElements = new ArrayList<>(textElements);
-        textChunks.add(new TextChunk(copyOfTextElements.remove(0)));
+        Iterator<TextElement> iter = textElements.iterator();
+        textChunks.add(new TextChunk(iter.next()));
         TextChunk firstTC = textChunks.get(0);
 
         float previousAveCharWidth = (float) firstTC.getWidth();
@@ -142,7 +146,8 @@ public class TextElement extends Rectangle implements HasText {
         TextChunk currentChunk;
         boolean sameLine, acrossVerticalRuling;
 
-        for (TextElement chr : copyOfTextElements) {
+        while (iter.hasNext()) {
+            TextElement chr = iter.next();
             currentChunk = textChunks.get(textChunks.size() - 1);
             prevChar = currentChunk.textElements.get(currentChunk.textElements.size() - 1);
 
@@ -163,16 +168,7 @@ public class TextElement extends Rectangle implements HasText {
             }
 
             // is there any vertical ruling that goes across chr and prevChar?
-            acrossVerticalRuling = false;
-            for (Ruling r : verticalRulings) {
-                if (
-                        (verticallyOverlapsRuling(prevChar, r) && verticallyOverlapsRuling(chr, r)) &&
-                                (prevChar.x < r.getPosition() && chr.x > r.getPosition()) || (prevChar.x > r.getPosition() && chr.x < r.getPosition())
-                        ) {
-                    acrossVerticalRuling = true;
-                    break;
-                }
-            }
+            acrossVerticalRuling = verticalRulings.isAcross(prevChar, chr);
 
             // Estimate the expected width of the space based on the
             // space character with some margin.
@@ -258,20 +254,19 @@ public class TextElement extends Rectangle implements HasText {
         }
 
 
-        List<TextChunk> textChunksSeparatedByDirectionality = new ArrayList<>();
         // count up characters by directionality
-        for (TextChunk chunk : textChunks) {
+        for (int i = 0; i < textChunks.size(); i++) {
+            TextChunk chunk = textChunks.get(i);
+            // without them, the chunk is left to right dominant, and grouping by directionality keeps its order
+            if (!chunk.hasRightToLeftCharacters()) {
+                continue;
+            }
             // choose the dominant direction
             boolean isLtrDominant = chunk.isLtrDominant() != -1; // treat neutral as LTR
-            TextChunk dirChunk = chunk.groupByDirectionality(isLtrDominant);
-            textChunksSeparatedByDirectionality.add(dirChunk);
+            textChunks.set(i, chunk.groupByDirectionality(isLtrDominant));
         }
 
-        return textChunksSeparatedByDirectionality;
-    }
-
-    private static boolean verticallyOverlapsRuling(TextElement te, Ruling r) {
-        return Math.max(0, Math.min(te.getBottom(), r.getY2()) - Math.max(te.getTop(), r.getY1())) > 0;
+        return textChunks;
     }
 
 }
@@ -9,18 +9,20 @@ import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 public class TextStripper extends PDFTextStripper {
 
     private static final String NBSP = "\u00A0";
+    private static final BitSet PRINTABLE_CHARS = printableChars();
     private static final float AVG_HEIGHT_MULT_THRESHOLD = 6.0f;
     private static final float MAX_BLANK_FONT_SIZE = 40.0f;
     private static final float MIN_BLANK_FONT_SIZE = 2.0f;
     private final PDDocument document;
-    private final ArrayList<TextElement> textElements;
-    private final RectangleSpatialIndex<TextElement> spatialIndex;
+    private final GlyphStore glyphs;
+    private List<TextElement> textElements;
+    private RectangleSpatialIndex<TextElement> spatialIndex;
     private float minCharWidth = Float.MAX_VALUE;
     private float minCharHeight = Float.MAX_VALUE;
     private float totalHeight = 0.0f;
@@ -31,8 +33,7 @@ public class TextStripper extends PDFTextStripper {
         this.document = document;
         this.setStartPage(pageNumber);
         this.setEndPage(pageNumber);
-        this.textElements = new ArrayList<>();
-        this.spatialIndex = new RectangleSpatialIndex<>();
+        this.glyphs = new GlyphStore();
     }
 
     public void process() throws IOException {
@@ -42,8 +43,9 @@ public class TextStripper extends PDFTextStripper {
     @Override
     protected void writeString(String string, List<TextPosition> textPositions) throws IOException
     {
-        for (TextPosition textPosition: textPositions)
+        for (int i = 0; i < textPositions.size(); i++)
         {
+            TextPosition textPosition = textPositions.get(i);
             if (textPosition == null) {
                 continue;
             }
@@ -55,34 +57,29 @@ public class TextStripper extends PDFTextStripper {
                 continue;
             }
 
-            Float h = textPosition.getHeightDir();
+            float h = textPosition.getHeightDir();
 
             if (c.equals(NBSP)) { // replace non-breaking space for space
                 c = " ";
             }
 
             float wos = textPosition.getWidthOfSpace();
+            float width = Utils.round(textPosition.getWidthDirAdj(), 2);
+            float height = Utils.round(h, 2);
 
-            TextElement te = new TextElement(Utils.round(textPosition.getYDirAdj() - h, 2),
-                    Utils.round(textPosition.getXDirAdj(), 2), Utils.round(textPosition.getWidthDirAdj(), 2),
-                    Utils.round(textPosition.getHeightDir(), 2), textPosition.getFont(), textPosition.getFontSizeInPt(), c,
-                    // workaround a possible bug in PDFBox:
-                    // https://issues.apache.org/jira/browse/PDFBOX-1755
-                    wos, textPosition.getDir());
-
-            this.minCharWidth = (float) Math.min(this.minCharWidth, te.getWidth());
-            this.minCharHeight = (float) Math.min(this.minCharHeight, te.getHeight());
+            this.minCharWidth = Math.min(this.minCharWidth, width);
+            this.minCharHeight = Math.min(this.minCharHeight, height);
 
             countHeight++;
-            totalHeight += te.getHeight();
+            totalHeight += height;
             float avgHeight = totalHeight / countHeight;
             
             //We have an issue where tall blank cells throw off the row height calculation
             //Introspect a blank cell a bit here to see if it should be thrown away
-            if ((te.getText() == null || te.getText().trim().equals(""))) {
+            if (isBlank(c)) {
                 //if the cell height is more than AVG_HEIGHT_MULT_THRESHOLDxaverage, throw it away
                 if (avgHeight > 0
-                        && te.getHeight() >= (avgHeight * AVG_HEIGHT_MULT_THRESHOLD)) {
+                        && height >= (avgHeight * AVG_HEIGHT_MULT_THRESHOLD)) {
                     continue;
                 }
                 
@@ -92,8 +89,12 @@ public class TextStripper extends PDFTextStripper {
                 }
             }
             
-            this.spatialIndex.add(te);
-            this.textElements.add(te);
+            this.glyphs.add(Utils.round(textPosition.getYDirAdj() - h, 2),
+                    Utils.round(textPosition.getXDirAdj(), 2), width,
+                    height, textPosition.getFont(), textPosition.getFontSizeInPt(), c,
+                    // workaround a possible bug in PDFBox:
+                    // https://issues.apache.org/jira/browse/PDFBOX-1755
+                    wos, textPosition.getDir());
         }
     }
 
@@ -145,23 +146,65 @@ public class TextStripper extends PDFTextStripper {
     return height;
   }
 
-    private boolean isPrintable(String s) {
-        Character c;
-        Character.UnicodeBlock block;
-        boolean printable = false;
+    /**
+     * Whether any of the chars of <code>s</code> is printable, that is, not a control char and
+     * in a Unicode block other than SPECIALS. Surrogates are in blocks of their own, so a
+     * supplementary code point is printable as far as this goes.
+     */
+    private static boolean isPrintable(String s) {
         for (int i = 0; i < s.length(); i++) {
-            c = s.charAt(i);
-            block = Character.UnicodeBlock.of(c);
-            printable |= !Character.isISOControl(c) && block != null && block != Character.UnicodeBlock.SPECIALS;
+            if (PRINTABLE_CHARS.get(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BitSet printableChars() {
+        BitSet printable = new BitSet(Character.MAX_VALUE + 1);
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            Character.UnicodeBlock block = Character.UnicodeBlock.of((char) c);
+            if (!Character.isISOControl(c) && block != null && block != Character.UnicodeBlock.SPECIALS) {
+                printable.set(c);
+            }
         }
         return printable;
     }
 
+    /**
+     * Same as <code>s.trim().isEmpty()</code>, without creating the trimmed string.
+     */
+    private static boolean isBlank(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public GlyphStore getGlyphs() {
+        return glyphs;
+    }
+
+    /**
+     * The TextElements of the glyphs, created on the first call. Sorting the glyphs after that
+     * doesn't change them.
+     */
     public List<TextElement> getTextElements() {
+        if (textElements == null) {
+            textElements = glyphs.toTextElements();
+        }
         return this.textElements;
     }
 
+    /**
+     * The index is built on first use, most callers only need the text elements.
+     */
     public RectangleSpatialIndex<TextElement> getSpatialIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = RectangleSpatialIndex.of(getTextElements());
+        }
         return spatialIndex;
     }
 
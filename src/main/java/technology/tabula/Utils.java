@@ -38,7 +38,35 @@ public class Utils {
         return (Math.abs(f1 - f2) < EPSILON);
     }
 
+    private static final float[] FLOAT_10_POW = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private static final double[] DOUBLE_10_POW = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10
+    };
+    // rounded values up to here are exact floats, so one float division gives the correctly rounded result
+    private static final double MAX_FAST_ROUNDED = 1 << 22;
+    private static final double HALF_WAY_TOLERANCE = 1e-6;
+
+    /**
+     * Rounds <code>d</code> half up to <code>decimalPlace</code> decimals, as its shortest decimal
+     * representation (the one given by {@link Double#toString(double)}) would be rounded by BigDecimal.
+     */
     public static float round(double d, int decimalPlace) {
+        if (decimalPlace >= 0 && decimalPlace < FLOAT_10_POW.length) {
+            double scaled = Math.abs(d) * DOUBLE_10_POW[decimalPlace];
+            double fraction = scaled - Math.floor(scaled);
+            // near .5 the error of the multiplication may decide which way it rounds, so leave those to BigDecimal
+            if (scaled < MAX_FAST_ROUNDED && Math.abs(fraction - 0.5) > HALF_WAY_TOLERANCE) {
+                long rounded = (long) Math.floor(scaled + 0.5);
+                // what BigDecimal.floatValue does for small unscaled values; zero comes out positive, as there
+                return (d < 0 ? -rounded : rounded) / FLOAT_10_POW[decimalPlace];
+            }
+        }
+        return roundWithBigDecimal(d, decimalPlace);
+    }
+
+    static float roundWithBigDecimal(double d, int decimalPlace) {
         BigDecimal bd = new BigDecimal(Double.toString(d));
         bd = bd.setScale(decimalPlace, BigDecimal.ROUND_HALF_UP);
         return bd.floatValue();
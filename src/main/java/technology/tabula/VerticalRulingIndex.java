@@ -0,0 +1,92 @@
+package technology.tabula;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vertical rulings, sorted by position, to tell whether a ruling goes across two characters
+ * in {@link TextElement#mergeWords(List, VerticalRulingIndex)}.
+ *
+ * Only the rulings between the two characters are looked at, so that takes a binary search
+ * instead of a look at every ruling. An index can be built once for a page and used for every
+ * call to mergeWords on it.
+ */
+public final class VerticalRulingIndex {
+
+    static final VerticalRulingIndex EMPTY = new VerticalRulingIndex(new float[0], new float[0], new float[0]);
+
+    private final float[] position, y1, y2;
+
+    private VerticalRulingIndex(float[] position, float[] y1, float[] y2) {
+        this.position = position;
+        this.y1 = y1;
+        this.y2 = y2;
+    }
+
+    /**
+     * @param verticalRulings must not be oblique, as they are looked up by {@link Ruling#getPosition()}
+     */
+    public VerticalRulingIndex(List<Ruling> verticalRulings) {
+        int[] order = new int[verticalRulings.size()];
+        float[] positions = new float[order.length];
+        int size = 0;
+        for (int i = 0; i < order.length; i++) {
+            positions[i] = verticalRulings.get(i).getPosition();
+            // a ruling at NaN is never between two characters
+            if (!Float.isNaN(positions[i])) {
+                order[size++] = i;
+            }
+        }
+        int[] sorted = Arrays.copyOf(order, size);
+        QuickSort.sort(sorted, (i, j) -> {
+            int rv = Float.compare(positions[i], positions[j]);
+            return rv != 0 ? rv : Integer.compare(i, j);
+        });
+
+        position = new float[size];
+        y1 = new float[size];
+        y2 = new float[size];
+        for (int k = 0; k < size; k++) {
+            Ruling r = verticalRulings.get(sorted[k]);
+            position[k] = positions[sorted[k]];
+            y1[k] = r.y1;
+            y2[k] = r.y2;
+        }
+    }
+
+    /**
+     * Whether a ruling goes across <code>previous</code> and <code>next</code>, the way mergeWords
+     * has always decided it: left to right, the ruling has to vertically overlap both characters,
+     * but right to left, any ruling between them will do.
+     */
+    public boolean isAcross(TextElement previous, TextElement next) {
+        if (previous.x > next.x) {
+            int i = firstRightOf(next.x);
+            return i < position.length && position[i] < previous.x;
+        }
+        for (int i = firstRightOf(previous.x); i < position.length && position[i] < next.x; i++) {
+            if (verticallyOverlaps(previous, i) && verticallyOverlaps(next, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int firstRightOf(float x) {
+        int low = 0, high = position.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (position[middle] <= x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean verticallyOverlaps(TextElement te, int i) {
+        return Math.max(0, Math.min(te.getBottom(), y2[i]) - Math.max(te.getTop(), y1[i])) > 0;
+    }
+
+}
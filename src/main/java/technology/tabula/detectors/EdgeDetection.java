@@ -0,0 +1,31 @@
+package technology.tabula.detectors;
+
+/**
+ * How {@link NurminenDetectionAlgorithm} finds the edges of a page, from which it makes the ruling lines
+ * of its tables.
+ */
+public enum EdgeDetection {
+
+    /**
+     * Renders the page twice: once as it is, for horizontal edges, and once with its text removed,
+     * for vertical edges, so that the sides of characters aren't taken for edges.
+     */
+    RENDER_TWICE,
+
+    /**
+     * Renders the page once, without painting any glyph, and finds both horizontal and vertical edges
+     * in that image. About twice as fast as {@link #RENDER_TWICE}. Text no longer makes horizontal edges,
+     * and text drawn from form XObjects, which {@link #RENDER_TWICE} doesn't remove, no longer makes
+     * vertical ones, so a few tables may be found differently.
+     */
+    RENDER_ONCE,
+
+    /**
+     * Takes the edges from the vector rulings of the page, without rendering it, when they make at least
+     * one cell and the page paints no images, shadings nor patterns, which may have ruling lines in them.
+     * Otherwise, it falls back to {@link #RENDER_TWICE}. Much faster on pages with clean vector rulings,
+     * but what makes an edge in the rendered page isn't always a ruling, so tables may be found differently.
+     */
+    VECTOR_FIRST
+
+}
@@ -3,11 +3,17 @@ package technology.tabula.detectors;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
 import org.apache.pdfbox.contentstream.operator.Operator;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdfparser.PDFStreamParser;
@@ -15,7 +21,16 @@ import org.apache.pdfbox.pdfwriter.ContentStreamWriter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
+import org.apache.pdfbox.pdmodel.graphics.color.PDPattern;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
 import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
 
 import technology.tabula.Line;
 import technology.tabula.Page;
@@ -44,6 +59,28 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
     private static final int REQUIRED_TEXT_LINES_FOR_EDGE = 4;
     private static final int REQUIRED_CELLS_FOR_TABLE = 4;
     private static final float IDENTICAL_TABLE_OVERLAP_RATIO = 0.9f;
+    private static final int RENDERING_DPI = 144;
+
+    private final EdgeDetection edgeDetection;
+    // where the edges of rendered pages are scanned for, or null to scan them on the calling thread
+    private final ForkJoinPool pool;
+
+    public NurminenDetectionAlgorithm() {
+        this(EdgeDetection.RENDER_TWICE);
+    }
+
+    public NurminenDetectionAlgorithm(EdgeDetection edgeDetection) {
+        this(edgeDetection, null);
+    }
+
+    /**
+     * Scans rendered pages for edges in strips, on the threads of <code>pool</code>, and for horizontal and
+     * vertical edges at the same time. The tables found are the same as when scanning on the calling thread.
+     */
+    public NurminenDetectionAlgorithm(EdgeDetection edgeDetection, ForkJoinPool pool) {
+        this.edgeDetection = edgeDetection;
+        this.pool = pool;
+    }
 
     /**
      * Helper class that encapsulates a text edge
@@ -95,36 +132,65 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         // we get these from an image of the PDF and not the PDF itself because sometimes there are invisible PDF
         // instructions that are interpreted incorrectly as visible elements - we really want to capture what a
         // person sees when they look at the PDF
-        BufferedImage image;
-        PDPage pdfPage = page.getPDPage();
-        try {
-            image = Utils.pageConvertToImage(page.getPDDoc(), pdfPage, 144, ImageType.GRAY);
-        } catch (IOException e) {
-            return new ArrayList<>();
-        }
-
-        List<Ruling> horizontalRulings = this.getHorizontalRulings(image);
+        List<Ruling> horizontalRulings, verticalRulings;
+        if (this.edgeDetection == EdgeDetection.VECTOR_FIRST && hasReliableRulings(page)) {
+            // the rulings as drawn, as the edges found in a rendered page would be, not snapped nor collapsed
+            horizontalRulings = new ArrayList<>();
+            verticalRulings = new ArrayList<>();
+            for (Ruling ruling : page.getUnprocessedRulings()) {
+                if (ruling.horizontal()) {
+                    addEdge(horizontalRulings, ruling, HORIZONTAL_EDGE_WIDTH_MINIMUM);
+                } else if (ruling.vertical()) {
+                    addEdge(verticalRulings, ruling, VERTICAL_EDGE_HEIGHT_MINIMUM);
+                }
+            }
+        } else if (this.edgeDetection == EdgeDetection.RENDER_ONCE) {
+            BufferedImage image;
+            try {
+                image = renderWithoutText(page);
+            } catch (IOException e) {
+                return new ArrayList<>();
+            }
+            // the two scans are independent, so in the pool they go on together
+            ForkJoinTask<List<Ruling>> horizontalScan = start(new HorizontalEdgeScan(image, stripSize(image.getHeight())));
+            verticalRulings = run(new VerticalEdgeScan(image, stripSize(image.getWidth())));
+            horizontalRulings = horizontalScan.join();
+        } else {
+            BufferedImage image;
+            PDPage pdfPage = page.getPDPage();
+            try {
+                image = Utils.pageConvertToImage(page.getPDDoc(), pdfPage, RENDERING_DPI, ImageType.GRAY);
+            } catch (IOException e) {
+                return new ArrayList<>();
+            }
 
-        // now check the page for vertical lines, but remove the text first to make things less confusing
-        PDDocument removeTextDocument = null;
-        try {
-            removeTextDocument = this.removeText(pdfPage);
-            pdfPage = removeTextDocument.getPage(0);
-            image = Utils.pageConvertToImage(removeTextDocument, pdfPage, 144, ImageType.GRAY);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        } finally {
-            if (removeTextDocument != null) {
-                try {
-                    removeTextDocument.close();
-                } catch (IOException e) {
-                    // TODO Auto-generated catch block
-                    e.printStackTrace();
+            // scan it, in the pool while the page is rendered again
+            ForkJoinTask<List<Ruling>> horizontalScan = start(new HorizontalEdgeScan(image, stripSize(image.getHeight())));
+
+            // now check the page for vertical lines, but remove the text first to make things less confusing
+            PDDocument removeTextDocument = null;
+            try {
+                removeTextDocument = this.removeText(pdfPage);
+                pdfPage = removeTextDocument.getPage(0);
+                image = Utils.pageConvertToImage(removeTextDocument, pdfPage, RENDERING_DPI, ImageType.GRAY);
+            } catch (Exception e) {
+                // no need to finish the scan
+                horizontalScan.cancel(true);
+                return new ArrayList<>();
+            } finally {
+                if (removeTextDocument != null) {
+                    try {
+                        removeTextDocument.close();
+                    } catch (IOException e) {
+                        // TODO Auto-generated catch block
+                        e.printStackTrace();
+                    }
                 }
             }
-        }
 
-        List<Ruling> verticalRulings = this.getVerticalRulings(image);
+            verticalRulings = run(new VerticalEdgeScan(image, stripSize(image.getWidth())));
+            horizontalRulings = horizontalScan.join();
+        }
 
         List<Ruling> allEdges = new ArrayList<>(horizontalRulings);
         allEdges.addAll(verticalRulings);
@@ -673,132 +739,407 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         return tableAreas;
     }
 
-    private List<Ruling> getHorizontalRulings(BufferedImage image) {
+    /**
+     * The size of the strips of a scan across <code>size</code> rows, or columns: all of them in one strip
+     * when scanning on the calling thread, otherwise a few strips per thread of the pool, so that they even out,
+     * but not so many that forking them costs more than it saves.
+     */
+    private int stripSize(int size) {
+        if (pool == null) {
+            return Math.max(1, size);
+        }
+        return Math.max(EdgeScan.MINIMUM_STRIP_SIZE, size / (EdgeScan.STRIPS_PER_THREAD * pool.getParallelism()));
+    }
+
+    /**
+     * Starts the scan in the pool, or does it right away on the calling thread.
+     */
+    private ForkJoinTask<List<Ruling>> start(EdgeScan scan) {
+        if (pool == null) {
+            scan.invoke();
+            return scan;
+        }
+        return pool.submit(scan);
+    }
+
+    private List<Ruling> run(EdgeScan scan) {
+        return pool == null ? scan.invoke() : pool.invoke(scan);
+    }
+
+    /* visible for testing */ public static List<Ruling> findHorizontalEdges(BufferedImage image, int stripSize, ForkJoinPool pool) {
+        return pool.invoke(new HorizontalEdgeScan(image, stripSize));
+    }
+
+    /* visible for testing */ public static List<Ruling> findVerticalEdges(BufferedImage image, int stripSize, ForkJoinPool pool) {
+        return pool.invoke(new VerticalEdgeScan(image, stripSize));
+    }
+
+    // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - //
+    /**
+     * A scan of an image for edges, split into strips that are scanned as tasks of a fork-join pool.
+     *
+     * Every edge the scan finds lies in a single row, or column, and whether it's found only depends on
+     * the pixels and the edges found before it in the same row, or column. So strips along the edges
+     * are scanned on their own, with nothing to stitch at their boundaries, and the edges of two
+     * strips are merged into the order a scan of the whole image would find them in.
+     */
+    static abstract class EdgeScan extends RecursiveTask<List<Ruling>> {
+        private static final long serialVersionUID = 1L;
+
+        private static final int STRIPS_PER_THREAD = 4;
+        private static final int MINIMUM_STRIP_SIZE = 32;
+
+        protected final Grayscale gray;
+        protected final int width, height;
+        // the rows, or columns, of the strip
+        protected final int from, to;
+        protected final int stripSize;
+
+        EdgeScan(Grayscale gray, int width, int height, int from, int to, int stripSize) {
+            this.gray = gray;
+            this.width = width;
+            this.height = height;
+            this.from = from;
+            this.to = to;
+            this.stripSize = stripSize;
+        }
+
+        @Override
+        protected List<Ruling> compute() {
+            if (to - from <= stripSize) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            EdgeScan after = strip(middle, to);
+            after.fork();
+            List<Ruling> before = strip(from, middle).compute();
+            return merge(before, after.join());
+        }
+
+        /**
+         * Merges the edges of two strips, those of <code>before</code> being in rows, or columns,
+         * before those of <code>after</code>.
+         */
+        private List<Ruling> merge(List<Ruling> before, List<Ruling> after) {
+            List<Ruling> rv = new ArrayList<>(before.size() + after.size());
+            int i = 0, j = 0;
+            while (i < before.size() && j < after.size()) {
+                // at the same place along the scan, the edge of the strip before comes first
+                if (scanPosition(before.get(i)) <= scanPosition(after.get(j))) {
+                    rv.add(before.get(i++));
+                } else {
+                    rv.add(after.get(j++));
+                }
+            }
+            rv.addAll(before.subList(i, before.size()));
+            rv.addAll(after.subList(j, after.size()));
+            return rv;
+        }
+
+        protected abstract EdgeScan strip(int from, int to);
+
+        protected abstract List<Ruling> scan();
+
+        /**
+         * The column, or row, the scan was at when it found <code>edge</code>.
+         */
+        protected abstract float scanPosition(Ruling edge);
+    }
+
+    /**
+     * Horizontal edges, which we'll define as a change in grayscale colour along a straight line of a certain
+     * length, found column by column, then row by row.
+     */
+    static final class HorizontalEdgeScan extends EdgeScan {
+        private static final long serialVersionUID = 1L;
+
+        HorizontalEdgeScan(BufferedImage image, int stripSize) {
+            this(new Grayscale(image.getRaster()), image.getWidth(), image.getHeight(), 1, Math.max(1, image.getHeight() - 1),
+                    stripSize);
+        }
+
+        private HorizontalEdgeScan(Grayscale gray, int width, int height, int from, int to, int stripSize) {
+            super(gray, width, height, from, to, stripSize);
+        }
+
+        @Override
+        protected EdgeScan strip(int from, int to) {
+            return new HorizontalEdgeScan(gray, width, height, from, to, stripSize);
+        }
 
-        // get all horizontal edges, which we'll define as a change in grayscale colour
-        // along a straight line of a certain length
-        ArrayList<Ruling> horizontalRulings = new ArrayList<>();
+        @Override
+        protected float scanPosition(Ruling edge) {
+            return edge.x1;
+        }
 
-        Raster r = image.getRaster();
-        int width = r.getWidth();
-        int height = r.getHeight();
+        @Override
+        protected List<Ruling> scan() {
+            ArrayList<Ruling> horizontalRulings = new ArrayList<>();
 
-        for (int x = 0; x < width; x++) {
+            // scanned row by row, along the raster, rather than column by column
+            for (int y = from; y < to; y++) {
 
-            int[] lastPixel = r.getPixel(x, 0, (int[]) null);
+                // the rightmost end of the edges found so far in the row
+                int checkedTo = -1;
 
-            for (int y = 1; y < height - 1; y++) {
+                for (int x = 0; x < width; x++) {
 
-                int[] currPixel = r.getPixel(x, y, (int[]) null);
+                    int currPixel = gray.get(x, y);
 
-                int diff = Math.abs(currPixel[0] - lastPixel[0]);
-                if (diff > GRAYSCALE_INTENSITY_THRESHOLD) {
-                    // we hit what could be a line
-                    // don't bother scanning it if we've hit a pixel in the line before
-                    boolean alreadyChecked = false;
-                    for (Line2D.Float line : horizontalRulings) {
-                        if (y == line.getY1() && x >= line.getX1() && x <= line.getX2()) {
-                            alreadyChecked = true;
-                            break;
+                    int diff = Math.abs(currPixel - gray.get(x, y - 1));
+                    if (diff > GRAYSCALE_INTENSITY_THRESHOLD) {
+                        // we hit what could be a line
+                        // don't bother scanning it if we've hit a pixel in the line before
+                        if (x <= checkedTo) {
+                            continue;
                         }
-                    }
 
-                    if (alreadyChecked) {
-                        lastPixel = currPixel;
-                        continue;
-                    }
+                        int lineX = x + 1;
 
-                    int lineX = x + 1;
+                        while (lineX < width) {
+                            int linePixel = gray.get(lineX, y);
+                            int abovePixel = gray.get(lineX, y - 1);
 
-                    while (lineX < width) {
-                        int[] linePixel = r.getPixel(lineX, y, (int[]) null);
-                        int[] abovePixel = r.getPixel(lineX, y - 1, (int[]) null);
+                            if (Math.abs(linePixel - abovePixel) <= GRAYSCALE_INTENSITY_THRESHOLD
+                                    || Math.abs(currPixel - linePixel) > GRAYSCALE_INTENSITY_THRESHOLD) {
+                                break;
+                            }
 
-                        if (Math.abs(linePixel[0] - abovePixel[0]) <= GRAYSCALE_INTENSITY_THRESHOLD
-                                || Math.abs(currPixel[0] - linePixel[0]) > GRAYSCALE_INTENSITY_THRESHOLD) {
-                            break;
+                            lineX++;
                         }
 
-                        lineX++;
+                        int endX = lineX - 1;
+                        int lineWidth = endX - x;
+                        if (lineWidth > HORIZONTAL_EDGE_WIDTH_MINIMUM) {
+                            horizontalRulings.add(new Ruling(new Point2D.Float(x, y), new Point2D.Float(endX, y)));
+                            checkedTo = Math.max(checkedTo, endX);
+                        }
                     }
+                }
+            }
 
-                    int endX = lineX - 1;
-                    int lineWidth = endX - x;
-                    if (lineWidth > HORIZONTAL_EDGE_WIDTH_MINIMUM) {
-                        horizontalRulings.add(new Ruling(new Point2D.Float(x, y), new Point2D.Float(endX, y)));
-                    }
+            // back in the order of a scan column by column: the sort is stable, so edges starting in the same
+            // column stay in the order of their rows
+            Collections.sort(horizontalRulings, new Comparator<Ruling>() {
+                @Override
+                public int compare(Ruling o1, Ruling o2) {
+                    return Float.compare(o1.x1, o2.x1);
                 }
+            });
 
-                lastPixel = currPixel;
-            }
+            return horizontalRulings;
         }
-
-        return horizontalRulings;
     }
 
-    private List<Ruling> getVerticalRulings(BufferedImage image) {
+    /**
+     * Vertical edges, which we'll define as a change in grayscale colour along a straight line of a certain
+     * length, found row by row, then column by column.
+     */
+    static final class VerticalEdgeScan extends EdgeScan {
+        private static final long serialVersionUID = 1L;
 
-        // get all vertical edges, which we'll define as a change in grayscale colour
-        // along a straight line of a certain length
-        ArrayList<Ruling> verticalRulings = new ArrayList<>();
+        VerticalEdgeScan(BufferedImage image, int stripSize) {
+            this(new Grayscale(image.getRaster()), image.getWidth(), image.getHeight(), 1, Math.max(1, image.getWidth() - 1),
+                    stripSize);
+        }
 
-        Raster r = image.getRaster();
-        int width = r.getWidth();
-        int height = r.getHeight();
+        private VerticalEdgeScan(Grayscale gray, int width, int height, int from, int to, int stripSize) {
+            super(gray, width, height, from, to, stripSize);
+        }
 
-        for (int y = 0; y < height; y++) {
+        @Override
+        protected EdgeScan strip(int from, int to) {
+            return new VerticalEdgeScan(gray, width, height, from, to, stripSize);
+        }
+
+        @Override
+        protected float scanPosition(Ruling edge) {
+            return edge.y1;
+        }
+
+        @Override
+        protected List<Ruling> scan() {
+            ArrayList<Ruling> verticalRulings = new ArrayList<>();
+
+            // the lowest end of the edges found so far in each column; as the scan goes top to bottom,
+            // they all start at or above the current pixel
+            int[] columnCheckedTo = new int[to - from];
+            Arrays.fill(columnCheckedTo, -1);
 
-            int[] lastPixel = r.getPixel(0, y, (int[]) null);
+            for (int y = 0; y < height; y++) {
 
-            for (int x = 1; x < width - 1; x++) {
+                int lastPixel = gray.get(from - 1, y);
 
-                int[] currPixel = r.getPixel(x, y, (int[]) null);
+                for (int x = from; x < to; x++) {
 
-                int diff = Math.abs(currPixel[0] - lastPixel[0]);
-                if (diff > GRAYSCALE_INTENSITY_THRESHOLD) {
-                    // we hit what could be a line
-                    // don't bother scanning it if we've hit a pixel in the line before
-                    boolean alreadyChecked = false;
-                    for (Line2D.Float line : verticalRulings) {
-                        if (x == line.getX1() && y >= line.getY1() && y <= line.getY2()) {
-                            alreadyChecked = true;
-                            break;
+                    int currPixel = gray.get(x, y);
+
+                    int diff = Math.abs(currPixel - lastPixel);
+                    if (diff > GRAYSCALE_INTENSITY_THRESHOLD) {
+                        // we hit what could be a line
+                        // don't bother scanning it if we've hit a pixel in the line before
+                        if (y <= columnCheckedTo[x - from]) {
+                            lastPixel = currPixel;
+                            continue;
                         }
-                    }
 
-                    if (alreadyChecked) {
-                        lastPixel = currPixel;
-                        continue;
-                    }
+                        int lineY = y + 1;
 
-                    int lineY = y + 1;
+                        while (lineY < height) {
+                            int linePixel = gray.get(x, lineY);
+                            int leftPixel = gray.get(x - 1, lineY);
 
-                    while (lineY < height) {
-                        int[] linePixel = r.getPixel(x, lineY, (int[]) null);
-                        int[] leftPixel = r.getPixel(x - 1, lineY, (int[]) null);
+                            if (Math.abs(linePixel - leftPixel) <= GRAYSCALE_INTENSITY_THRESHOLD
+                                    || Math.abs(currPixel - linePixel) > GRAYSCALE_INTENSITY_THRESHOLD) {
+                                break;
+                            }
 
-                        if (Math.abs(linePixel[0] - leftPixel[0]) <= GRAYSCALE_INTENSITY_THRESHOLD
-                                || Math.abs(currPixel[0] - linePixel[0]) > GRAYSCALE_INTENSITY_THRESHOLD) {
-                            break;
+                            lineY++;
                         }
 
-                        lineY++;
+                        int endY = lineY - 1;
+                        int lineLength = endY - y;
+                        if (lineLength > VERTICAL_EDGE_HEIGHT_MINIMUM) {
+                            verticalRulings.add(new Ruling(new Point2D.Float(x, y), new Point2D.Float(x, endY)));
+                            columnCheckedTo[x - from] = Math.max(columnCheckedTo[x - from], endY);
+                        }
                     }
 
-                    int endY = lineY - 1;
-                    int lineLength = endY - y;
-                    if (lineLength > VERTICAL_EDGE_HEIGHT_MINIMUM) {
-                        verticalRulings.add(new Ruling(new Point2D.Float(x, y), new Point2D.Float(x, endY)));
-                    }
+                    lastPixel = currPixel;
                 }
-
-                lastPixel = currPixel;
             }
+
+            return verticalRulings;
         }
+    }
 
-        return verticalRulings;
+    /**
+     * Whether the vector rulings of the page can stand for what rendering it shows: they must make at least
+     * one cell, and the page must paint no images, shadings nor patterns, which may have ruling lines in them.
+     */
+    /* visible for testing */ public static boolean hasReliableRulings(Page page) {
+        if (SpreadsheetExtractionAlgorithm.findCells(page.getHorizontalRulings(), page.getVerticalRulings()).isEmpty()) {
+            return false;
+        }
+        try {
+            ImageFinder finder = new ImageFinder(page.getPDPage());
+            finder.processPage(page.getPDPage());
+            return !finder.found;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
+    /**
+     * Goes through the content of a page, and of the forms it draws, for anything painted other than
+     * paths and text in plain colours: images, inline ones included, shadings, and fills or strokes
+     * with a pattern.
+     */
+    private static final class ImageFinder extends PDFGraphicsStreamEngine {
+        private final Point2D currentPoint = new Point2D.Float();
+        boolean found;
+
+        ImageFinder(PDPage page) {
+            super(page);
+        }
+
+        @Override
+        public void drawImage(PDImage pdImage) {
+            found = true;
+        }
+
+        @Override
+        public void shadingFill(COSName shadingName) {
+            found = true;
+        }
+
+        @Override
+        public void fillPath(int windingRule) {
+            found |= getGraphicsState().getNonStrokingColorSpace() instanceof PDPattern;
+        }
+
+        @Override
+        public void strokePath() {
+            found |= getGraphicsState().getStrokingColorSpace() instanceof PDPattern;
+        }
+
+        @Override
+        public void fillAndStrokePath(int windingRule) {
+            fillPath(windingRule);
+            strokePath();
+        }
+
+        @Override
+        public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+            currentPoint.setLocation(p0);
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+            currentPoint.setLocation(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            currentPoint.setLocation(x, y);
+        }
+
+        @Override
+        public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+            currentPoint.setLocation(x3, y3);
+        }
+
+        @Override
+        public Point2D getCurrentPoint() {
+            return currentPoint;
+        }
+
+        @Override
+        public void closePath() {
+        }
+
+        @Override
+        public void endPath() {
+        }
+
+        @Override
+        public void clip(int windingRule) {
+        }
+    }
+
+    /**
+     * Adds the ruling to the edges, in the coordinates of the rendered page, if it's as long as an edge found
+     * in it has to be.
+     */
+    private static void addEdge(List<Ruling> edges, Ruling ruling, int minimumLength) {
+        float scale = RENDERING_DPI / 72f;
+        if (ruling.length() * scale > minimumLength) {
+            edges.add(new Ruling(new Point2D.Float(ruling.x1 * scale, ruling.y1 * scale),
+                    new Point2D.Float(ruling.x2 * scale, ruling.y2 * scale)));
+        }
+    }
+
+    /**
+     * Renders the page in grayscale, as for the horizontal edges, but without painting any glyph.
+     */
+    private static BufferedImage renderWithoutText(Page page) throws IOException {
+        PDDocument document = page.getPDDoc();
+        PDFRenderer renderer = new PDFRenderer(document) {
+            @Override
+            protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+                return new PageDrawer(parameters) {
+                    @Override
+                    protected void showFontGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement) {
+                    }
+
+                    @Override
+                    protected void showType3Glyph(Matrix textRenderingMatrix, PDType3Font font, int code, Vector displacement) {
+                    }
+                };
+            }
+        };
+        return renderer.renderImageWithDPI(document.getPages().indexOf(page.getPDPage()), RENDERING_DPI, ImageType.GRAY);
+    }
 
     // taken from http://www.docjar.com/html/api/org/apache/pdfbox/examples/util/RemoveAllText.java.html
     private PDDocument removeText(PDPage page) throws IOException {
@@ -831,4 +1172,39 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         newPage.setContents(newContents);
         return document;
     }
+
+    /**
+     * The first band of a raster, which is all there is of a grayscale image. Rasters of one byte per sample,
+     * which the images rendered for detection are, are read straight from their buffer; others are copied.
+     */
+    private static final class Grayscale {
+        private final byte[] bytes;
+        private final int[] samples;
+        private final int offset, scanlineStride, pixelStride;
+
+        Grayscale(Raster r) {
+            if (r.getDataBuffer() instanceof DataBufferByte && r.getDataBuffer().getNumBanks() == 1
+                    && r.getSampleModel() instanceof ComponentSampleModel) {
+                ComponentSampleModel sm = (ComponentSampleModel) r.getSampleModel();
+                bytes = ((DataBufferByte) r.getDataBuffer()).getData();
+                samples = null;
+                scanlineStride = sm.getScanlineStride();
+                pixelStride = sm.getPixelStride();
+                offset = r.getDataBuffer().getOffset() + sm.getBandOffsets()[0]
+                        - r.getSampleModelTranslateY() * scanlineStride - r.getSampleModelTranslateX() * pixelStride;
+            } else {
+                bytes = null;
+                samples = r.getSamples(r.getMinX(), r.getMinY(), r.getWidth(), r.getHeight(), 0, (int[]) null);
+                scanlineStride = r.getWidth();
+                pixelStride = 1;
+                offset = -r.getMinY() * scanlineStride - r.getMinX();
+            }
+        }
+
+        int get(int x, int y) {
+            int i = offset + y * scanlineStride + x * pixelStride;
+            return bytes != null ? bytes[i] & 0xff : samples[i];
+        }
+    }
+
 }
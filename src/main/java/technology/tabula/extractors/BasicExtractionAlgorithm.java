@@ -8,6 +8,7 @@ import java.util.Arrays;
 
 import technology.tabula.Line;
 import technology.tabula.Page;
+import technology.tabula.Pair;
 import technology.tabula.Rectangle;
 import technology.tabula.Ruling;
 import technology.tabula.Table;
@@ -43,25 +44,8 @@ public class BasicExtractionAlgorithm implements ExtractionAlgorithm {
             return Arrays.asList(new Table[] { Table.empty() });
         }
         
-        List<TextChunk> textChunks = this.verticalRulings == null ? TextElement.mergeWords(page.getText()) : TextElement.mergeWords(page.getText(), this.verticalRulings);
-        List<Line> lines = TextChunk.groupByLines(textChunks);
-        List<Float> columns = null;
-        
-        if (this.verticalRulings != null) {
-            Collections.sort(this.verticalRulings, new Comparator<Ruling>() {
-                @Override
-                public int compare(Ruling arg0, Ruling arg1) {
-                    return Double.compare(arg0.getLeft(), arg1.getLeft());
-                }
-            });
-            columns = new ArrayList<>(this.verticalRulings.size());
-            for (Ruling vr: this.verticalRulings) {
-                columns.add(vr.getLeft());
-            }
-        }
-        else {
-            columns = columnPositions(lines);
-        }
+        List<Line> lines = linesOf(page);
+        float[] columns = columnsOf(lines);
         
         Table table = new Table(this);
         table.setRect(page.getLeft(), page.getTop(), page.getWidth(), page.getHeight());
@@ -70,33 +54,119 @@ public class BasicExtractionAlgorithm implements ExtractionAlgorithm {
             Line line = lines.get(i);
             List<TextChunk> elements = line.getTextElements();
             
-            Collections.sort(elements, new Comparator<TextChunk>() {
-
-				@Override
-				public int compare(TextChunk o1, TextChunk o2) {
-					return Float.compare(o1.getLeft(), o2.getLeft());
-				}
-			});
+            if (!isSortedByLeft(elements)) {
+                Collections.sort(elements, BY_LEFT);
+            }
             
             for (TextChunk tc: elements) {
                 if (tc.isSameChar(Line.WHITE_SPACE_CHARS)) {
                     continue;
                 }
 
-                int j = 0;
-                boolean found = false;
-                for(; j < columns.size(); j++) {
-                    if (tc.getLeft() <= columns.get(j)) {
-                        found = true; 
-                        break;
-                    } 
-                }
-                table.add(tc, i, found ? j : columns.size());
+                table.add(tc, i, columnOf(tc, columns));
             }
         }
         
         return Arrays.asList(new Table[] { table } );
     }
+
+    /**
+     * The number of rows and columns of the table that {@link #extract(Page)} extracts from <code>page</code>,
+     * without making the table.
+     *
+     * @return the row count on the left, and the column count on the right
+     */
+    public Pair<Integer, Integer> countRowsAndColumns(Page page) {
+        if (page.getText().isEmpty()) {
+            return new Pair<>(0, 0);
+        }
+
+        List<Line> lines = linesOf(page);
+        float[] columns = columnsOf(lines);
+
+        int rowCount = 0, colCount = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            for (TextChunk tc: lines.get(i).getTextElements()) {
+                if (tc.isSameChar(Line.WHITE_SPACE_CHARS)) {
+                    continue;
+                }
+                rowCount = i + 1;
+                colCount = Math.max(colCount, columnOf(tc, columns) + 1);
+            }
+        }
+        return new Pair<>(rowCount, colCount);
+    }
+
+    private List<Line> linesOf(Page page) {
+        List<TextChunk> textChunks = this.verticalRulings == null ? TextElement.mergeWords(page.getText()) : TextElement.mergeWords(page.getText(), this.verticalRulings);
+        return TextChunk.groupByLines(textChunks);
+    }
+
+    /**
+     * @return the column boundaries, in ascending order
+     */
+    private float[] columnsOf(List<Line> lines) {
+        if (this.verticalRulings == null) {
+            return toFloatArray(columnPositions(lines));
+        }
+        Collections.sort(this.verticalRulings, new Comparator<Ruling>() {
+            @Override
+            public int compare(Ruling arg0, Ruling arg1) {
+                return Double.compare(arg0.getLeft(), arg1.getLeft());
+            }
+        });
+        float[] columns = new float[this.verticalRulings.size()];
+        for (int j = 0; j < columns.length; j++) {
+            columns[j] = this.verticalRulings.get(j).getLeft();
+        }
+        return columns;
+    }
+
+    /**
+     * The first column whose boundary is right of the left of <code>tc</code>, or the one after the last boundary.
+     */
+    private static int columnOf(TextChunk tc, float[] columns) {
+        float left = tc.getLeft();
+        // NaN boundaries are sorted last, and no left is ever at or before them
+        int high = columns.length;
+        while (high > 0 && Float.isNaN(columns[high - 1])) {
+            high--;
+        }
+        int low = 0, end = high;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (left <= columns[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low < end ? low : columns.length;
+    }
+
+    private static float[] toFloatArray(List<Float> values) {
+        float[] rv = new float[values.size()];
+        for (int i = 0; i < rv.length; i++) {
+            rv[i] = values.get(i);
+        }
+        return rv;
+    }
+
+    private static boolean isSortedByLeft(List<TextChunk> elements) {
+        for (int i = 1; i < elements.size(); i++) {
+            if (BY_LEFT.compare(elements.get(i - 1), elements.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final Comparator<TextChunk> BY_LEFT = new Comparator<TextChunk>() {
+        @Override
+        public int compare(TextChunk o1, TextChunk o2) {
+            return Float.compare(o1.getLeft(), o2.getLeft());
+        }
+    };
     
     @Override
     public String toString() {
@@ -110,17 +180,11 @@ public class BasicExtractionAlgorithm implements ExtractionAlgorithm {
      */
     public static List<java.lang.Float> columnPositions(List<Line> lines) {
 
-        List<Rectangle> regions = new ArrayList<>();
-        for (TextChunk tc: lines.get(0).getTextElements()) {
-            if (tc.isSameChar(Line.WHITE_SPACE_CHARS)) { 
-                continue; 
-            }
-            Rectangle r = new Rectangle();
-            r.setRect(tc);
-            regions.add(r);
-        }
-        
-        for (Line l: lines.subList(1, lines.size())) {
+        // each chunk goes in the first region that it overlaps, as the regions were
+        // before the line, or else makes a new region
+        ColumnRegions regions = new ColumnRegions();
+        int[] regionOf = new int[16];
+        for (Line l: lines) {
             List<TextChunk> lineTextElements = new ArrayList<>();
             for (TextChunk tc: l.getTextElements()) {
                 if (!tc.isSameChar(Line.WHITE_SPACE_CHARS)) { 
@@ -128,31 +192,27 @@ public class BasicExtractionAlgorithm implements ExtractionAlgorithm {
                 }
             }
             
-            for (Rectangle cr: regions) {
-
-                List<TextChunk> overlaps = new ArrayList<>();
-                for (TextChunk te: lineTextElements) {
-                    if (cr.horizontallyOverlaps(te)) {
-                        overlaps.add(te);
-                    }
-                }
-                
-                for (TextChunk te: overlaps) {
-                    cr.merge(te);
+            if (regionOf.length < lineTextElements.size()) {
+                regionOf = new int[lineTextElements.size()];
+            }
+            for (int i = 0; i < lineTextElements.size(); i++) {
+                regionOf[i] = regions.firstOverlapping(lineTextElements.get(i));
+            }
+            for (int i = 0; i < lineTextElements.size(); i++) {
+                if (regionOf[i] >= 0) {
+                    regions.merge(regionOf[i], lineTextElements.get(i));
                 }
-                
-                lineTextElements.removeAll(overlaps);
             }
-            
-            for (TextChunk te: lineTextElements) {
-                Rectangle r = new Rectangle();
-                r.setRect(te);
-                regions.add(r);
+            for (int i = 0; i < lineTextElements.size(); i++) {
+                if (regionOf[i] < 0) {
+                    regions.add(lineTextElements.get(i));
+                }
             }
+            regions.reorder();
         }
         
         List<java.lang.Float> rv = new ArrayList<>();
-        for (Rectangle r: regions) {
+        for (Rectangle r: regions.all) {
             rv.add(r.getRight());
         }
         
@@ -162,4 +222,114 @@ public class BasicExtractionAlgorithm implements ExtractionAlgorithm {
         
     }
 
+    /**
+     * The regions of {@link #columnPositions(List)}. The ones with a width, the only ones that can overlap
+     * anything, are also kept ordered by left, along with the rightmost right up to each of them, so that
+     * the regions that overlap a chunk are found without looking at all the others.
+     */
+    private static final class ColumnRegions {
+        final List<Rectangle> all = new ArrayList<>();
+
+        // by position in the order by left
+        private int[] byLeft = new int[16];
+        private float[] left = new float[16], right = new float[16], maxRight = new float[16];
+        private int size;
+        // by index in all
+        private int[] positionOf = new int[16];
+        // the first position whose region moved or changed since the last reorder()
+        private int firstChanged = Integer.MAX_VALUE;
+
+        /**
+         * @return the index of the first region that horizontally overlaps <code>tc</code>, or -1
+         */
+        int firstOverlapping(TextChunk tc) {
+            float l = tc.getLeft(), r = tc.getRight();
+            if (!(r > l)) {
+                return -1;
+            }
+            int low = 0, high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (left[middle] < r) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            int rv = -1;
+            for (int p = low - 1; p >= 0 && maxRight[p] > l; p--) {
+                if (right[p] > l && right[p] > left[p] && (rv < 0 || byLeft[p] < rv)) {
+                    rv = byLeft[p];
+                }
+            }
+            return rv;
+        }
+
+        void merge(int region, TextChunk tc) {
+            Rectangle r = all.get(region);
+            r.merge(tc);
+            int p = positionOf[region];
+            left[p] = r.getLeft();
+            right[p] = r.getRight();
+            firstChanged = Math.min(firstChanged, p);
+        }
+
+        void add(TextChunk tc) {
+            Rectangle r = new Rectangle();
+            r.setRect(tc);
+            all.add(r);
+            if (positionOf.length < all.size()) {
+                positionOf = Arrays.copyOf(positionOf, all.size() * 2);
+            }
+            if (!(r.getRight() > r.getLeft())) {
+                return;
+            }
+            if (size == byLeft.length) {
+                byLeft = Arrays.copyOf(byLeft, size * 2);
+                left = Arrays.copyOf(left, size * 2);
+                right = Arrays.copyOf(right, size * 2);
+                maxRight = Arrays.copyOf(maxRight, size * 2);
+            }
+            byLeft[size] = all.size() - 1;
+            left[size] = r.getLeft();
+            right[size] = r.getRight();
+            positionOf[all.size() - 1] = size;
+            firstChanged = Math.min(firstChanged, size);
+            size++;
+        }
+
+        /**
+         * Puts the regions that grew or were added back in order, which only takes moving those.
+         */
+        void reorder() {
+            if (firstChanged >= size) {
+                return;
+            }
+            int from = firstChanged;
+            for (int p = Math.max(1, firstChanged); p < size; p++) {
+                int region = byLeft[p];
+                float l = left[p], r = right[p];
+                int q = p;
+                while (q > 0 && left[q - 1] > l) {
+                    byLeft[q] = byLeft[q - 1];
+                    left[q] = left[q - 1];
+                    right[q] = right[q - 1];
+                    positionOf[byLeft[q]] = q;
+                    q--;
+                }
+                byLeft[q] = region;
+                left[q] = l;
+                right[q] = r;
+                positionOf[region] = q;
+                from = Math.min(from, q);
+            }
+            for (int p = from; p < size; p++) {
+                // a NaN right overlaps nothing, and mustn't hide the rights before it
+                float previous = p == 0 ? Float.NEGATIVE_INFINITY : maxRight[p - 1];
+                maxRight[p] = right[p] > previous ? right[p] : previous;
+            }
+            firstChanged = Integer.MAX_VALUE;
+        }
+    }
+
 }
@@ -45,6 +45,13 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
      * Extract a list of Table from page using rulings as separators
      */
     public List<Table> extract(Page page, List<Ruling> rulings) {
+        return extract(page, rulings, true);
+    }
+
+    /**
+     * @param withText whether the cells get their text, which row and column counts don't need
+     */
+    private List<Table> extract(Page page, List<Ruling> rulings, boolean withText) {
         // split rulings into horizontal and vertical
         List<Ruling> horizontalR = new ArrayList<>();
         List<Ruling> verticalR = new ArrayList<>();
@@ -63,32 +70,39 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         List<Cell> cells = findCells(horizontalR, verticalR);
         List<Rectangle> spreadsheetAreas = findSpreadsheetsFromCells(cells);
         
-        List<Table> spreadsheets = new ArrayList<>();
+        // cells that overlap a spreadsheet area get their text, all of them at once
+        List<List<Cell>> overlappingCellsOfAreas = new ArrayList<>();
+        boolean[] overlapping = new boolean[cells.size()];
         for (Rectangle area: spreadsheetAreas) {
-
             List<Cell> overlappingCells = new ArrayList<>();
-            for (Cell c: cells) {
-                if (c.intersects(area)) {
-
-                    c.setTextElements(TextElement.mergeWords(page.getText(c)));
-                    overlappingCells.add(c);
+            for (int i = 0; i < cells.size(); i++) {
+                if (cells.get(i).intersects(area)) {
+                    overlapping[i] = true;
+                    overlappingCells.add(cells.get(i));
                 }
             }
-
-            List<Ruling> horizontalOverlappingRulings = new ArrayList<>();
-            for (Ruling hr: horizontalR) {
-                if (area.intersectsLine(hr)) {
-                    horizontalOverlappingRulings.add(hr);
-                }
+            overlappingCellsOfAreas.add(overlappingCells);
+        }
+        List<Cell> cellsWithText = new ArrayList<>();
+        for (int i = 0; i < cells.size(); i++) {
+            if (overlapping[i]) {
+                cellsWithText.add(cells.get(i));
             }
-            List<Ruling> verticalOverlappingRulings = new ArrayList<>();
-            for (Ruling vr: verticalR) {
-                if (area.intersectsLine(vr)) {
-                    verticalOverlappingRulings.add(vr);
-                }
+        }
+        if (withText) {
+            List<List<TextElement>> cellTexts = page.getText(cellsWithText);
+            for (int i = 0; i < cellsWithText.size(); i++) {
+                cellsWithText.get(i).setTextElements(TextElement.mergeWords(cellTexts.get(i)));
             }
-                        
-            TableWithRulingLines t = new TableWithRulingLines(area, overlappingCells, horizontalOverlappingRulings, verticalOverlappingRulings, this);
+        }
+        
+        RulingsByPosition horizontalRulings = new RulingsByPosition(horizontalR, true);
+        RulingsByPosition verticalRulings = new RulingsByPosition(verticalR, false);
+        List<Table> spreadsheets = new ArrayList<>();
+        for (int i = 0; i < spreadsheetAreas.size(); i++) {
+            Rectangle area = spreadsheetAreas.get(i);
+            TableWithRulingLines t = new TableWithRulingLines(area, overlappingCellsOfAreas.get(i),
+                    horizontalRulings.crossing(area), verticalRulings.crossing(area), this);
             spreadsheets.add(t);
         }
         Utils.sort(spreadsheets, Rectangle.ILL_DEFINED_ORDER);
@@ -107,7 +121,9 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         // removes white "margins")
         Page minimalRegion = page.getArea(Utils.bounds(page.getText()));
         
-        List<? extends Table> tables = new SpreadsheetExtractionAlgorithm().extract(minimalRegion);
+        // only the row and column counts of both extractions matter here, so neither of them
+        // fills its tables: the cells don't get their text, and the stream table isn't made
+        List<? extends Table> tables = extract(minimalRegion, minimalRegion.getRulings(), false);
         if (tables.isEmpty()) {
             return false;
         }
@@ -115,13 +131,9 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         int rowsDefinedByLines = table.getRowCount();
         int colsDefinedByLines = table.getColCount();
         
-        tables = new BasicExtractionAlgorithm().extract(minimalRegion);
-        if (tables.isEmpty()) {
-            return false;
-        }
-        table = tables.get(0);
-        int rowsDefinedWithoutLines = table.getRowCount();
-        int colsDefinedWithoutLines = table.getColCount();
+        Pair<Integer, Integer> counts = new BasicExtractionAlgorithm().countRowsAndColumns(minimalRegion);
+        int rowsDefinedWithoutLines = counts.getLeft();
+        int colsDefinedWithoutLines = counts.getRight();
         
         float ratio = (((float) colsDefinedByLines / colsDefinedWithoutLines) +
                 ((float) rowsDefinedByLines / rowsDefinedWithoutLines)) / 2.0f;
@@ -129,44 +141,62 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         return ratio > MAGIC_HEURISTIC_NUMBER && ratio < (1 / MAGIC_HEURISTIC_NUMBER);
     }
     
+    /**
+     * Finds the cells of the grid that the rulings make: for each intersection, taken as a top left corner,
+     * the nearest intersection below on the same vertical, then the nearest one on its right on the same horizontal,
+     * such that the bottom right corner they make is an intersection of the same rulings.
+     *
+     * Intersections are looked up by row and by column, so each corner only looks at the
+     * intersections of its own row and column.
+     */
     public static List<Cell> findCells(List<Ruling> horizontalRulingLines, List<Ruling> verticalRulingLines) {
         List<Cell> cellsFound = new ArrayList<>();
-        Map<Point2D, Ruling[]> intersectionPoints = Ruling.findIntersections(horizontalRulingLines, verticalRulingLines);
-        List<Point2D> intersectionPointsList = new ArrayList<>(intersectionPoints.keySet());
-        intersectionPointsList.sort(Y_FIRST_POINT_COMPARATOR);
-        
-        for (int i = 0; i < intersectionPointsList.size(); i++) {
-            Point2D topLeft = intersectionPointsList.get(i);
-            Ruling[] hv = intersectionPoints.get(topLeft);
+        RulingIntersections intersections = RulingIntersections.find(horizontalRulingLines, verticalRulingLines);
+        int n = intersections.size();
 
-            List<Point2D> xPoints = new ArrayList<>();
-            List<Point2D> yPoints = new ArrayList<>();
+        // intersections are ordered by y, then x, so each row is a run of them
+        int[] rowEnd = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            rowEnd[i] = i + 1 < n && intersections.getY(i + 1) == intersections.getY(i) ? rowEnd[i + 1] : i + 1;
+        }
+        // and in the order of x, then y, each column is a run of them
+        int[] byColumn = new int[n];
+        for (int i = 0; i < n; i++) {
+            byColumn[i] = i;
+        }
+        QuickSort.sort(byColumn, (i, j) -> {
+            int rv = Float.compare(intersections.getX(i) + 0f, intersections.getX(j) + 0f);
+            return rv != 0 ? rv : Integer.compare(i, j);
+        });
+        int[] columnPosition = new int[n];
+        int[] columnEnd = new int[n];
+        for (int k = n - 1; k >= 0; k--) {
+            columnPosition[byColumn[k]] = k;
+            columnEnd[k] = k + 1 < n && intersections.getX(byColumn[k + 1]) == intersections.getX(byColumn[k]) ? columnEnd[k + 1] : k + 1;
+        }
 
-            for (Point2D p: intersectionPointsList.subList(i, intersectionPointsList.size())) {
-                if (p.getX() == topLeft.getX() && p.getY() > topLeft.getY()) {
-                    xPoints.add(p);
-                }
-                if (p.getY() == topLeft.getY() && p.getX() > topLeft.getX()) {
-                    yPoints.add(p);
-                }
-            }
-            outer:
-            for (Point2D xPoint: xPoints) {
+        for (int topLeft : inYFirstPointOrder(intersections)) {
+            int horizontal = intersections.getHorizontalId(topLeft);
+            int vertical = intersections.getVerticalId(topLeft);
 
+            outer:
+            for (int k = columnPosition[topLeft] + 1; k < columnEnd[columnPosition[topLeft]]; k++) {
+                int xPoint = byColumn[k];
                 // is there a vertical edge b/w topLeft and xPoint?
-                if (!hv[1].equals(intersectionPoints.get(xPoint)[1])) {
+                if (intersections.getVerticalId(xPoint) != vertical) {
                     continue;
                 }
-                for (Point2D yPoint: yPoints) {
+                for (int yPoint = topLeft + 1; yPoint < rowEnd[topLeft]; yPoint++) {
                     // is there an horizontal edge b/w topLeft and yPoint ?
-                    if (!hv[0].equals(intersectionPoints.get(yPoint)[0])) {
+                    if (intersections.getHorizontalId(yPoint) != horizontal) {
                         continue;
                     }
-                    Point2D btmRight = new Point2D.Float((float) yPoint.getX(), (float) xPoint.getY());
-                    if (intersectionPoints.containsKey(btmRight) 
-                            && intersectionPoints.get(btmRight)[0].equals(intersectionPoints.get(xPoint)[0])
-                            && intersectionPoints.get(btmRight)[1].equals(intersectionPoints.get(yPoint)[1])) {
-                            cellsFound.add(new Cell(topLeft, btmRight));
+                    int btmRight = findInRow(intersections, xPoint + 1, rowEnd[xPoint], intersections.getX(yPoint));
+                    if (btmRight >= 0
+                            && intersections.getHorizontalId(btmRight) == intersections.getHorizontalId(xPoint)
+                            && intersections.getVerticalId(btmRight) == intersections.getVerticalId(yPoint)) {
+                        cellsFound.add(new Cell(new Point2D.Float(intersections.getX(topLeft), intersections.getY(topLeft)),
+                                                new Point2D.Float(intersections.getX(yPoint), intersections.getY(xPoint))));
                         break outer;
                     }
                 }
@@ -179,8 +209,273 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         
         return cellsFound;
     }
+
+    /**
+     * The intersections in {@link #Y_FIRST_POINT_COMPARATOR} order, which is the order cells are found in.
+     */
+    private static int[] inYFirstPointOrder(RulingIntersections intersections) {
+        int n = intersections.size();
+        float[] roundedX = new float[n], roundedY = new float[n];
+        int[] rv = new int[n];
+        for (int i = 0; i < n; i++) {
+            roundedX[i] = Utils.round(intersections.getX(i), 2);
+            roundedY[i] = Utils.round(intersections.getY(i), 2);
+            rv[i] = i;
+        }
+        // ties keep the order of the intersections, as a stable sort would
+        QuickSort.sort(rv, (i, j) -> {
+            int compare = Float.compare(roundedY[i], roundedY[j]);
+            if (compare == 0) compare = Float.compare(roundedX[i], roundedX[j]);
+            return compare != 0 ? compare : Integer.compare(i, j);
+        });
+        return rv;
+    }
+
+    /**
+     * Binary search for the intersection at <code>x</code> among intersections <code>from</code> .. <code>to - 1</code> of a row.
+     */
+    private static int findInRow(RulingIntersections intersections, int from, int to, float x) {
+        int low = from, high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            float middleX = intersections.getX(middle);
+            if (middleX < x) {
+                low = middle + 1;
+            } else if (middleX > x) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
     
+    /**
+     * Finds the areas of the spreadsheets made of <code>cells</code>: the bounding boxes of the
+     * rectilinear polygons that the cells merge into.
+     *
+     * This is {@link #traceSpreadsheetsFromCells(List)} with primitive arrays. Corners are counted
+     * in a hash table keyed by the bits of their coordinates, and the ones that aren't shared are
+     * paired up into edges by index, which the polygons are walked along.
+     */
     public static List<Rectangle> findSpreadsheetsFromCells(List<? extends Rectangle> cells) {
+        int n = cells.size();
+        float[] left = new float[n], top = new float[n], right = new float[n], bottom = new float[n];
+        for (int i = 0; i < n; i++) {
+            Rectangle cell = cells.get(i);
+            left[i] = cell.getLeft();
+            top[i] = cell.getTop();
+            right[i] = cell.getRight();
+            bottom[i] = cell.getBottom();
+            if (Float.isNaN(left[i]) || Float.isNaN(top[i]) || Float.isNaN(right[i]) || Float.isNaN(bottom[i])) {
+                return traceSpreadsheetsFromCells(cells);
+            }
+        }
+
+        // the corners found an odd number of times are the ones that aren't shared
+        boolean[] duplicate = duplicatesOf(cells);
+        CornerCounts counts = new CornerCounts(4 * n);
+        for (int i = 0; i < n; i++) {
+            if (!duplicate[i]) {
+                counts.add(left[i], top[i]);
+                counts.add(right[i], top[i]);
+                counts.add(right[i], bottom[i]);
+                counts.add(left[i], bottom[i]);
+            }
+        }
+        int k = counts.oddCount();
+        float[] x = new float[k], y = new float[k], roundedX = new float[k], roundedY = new float[k];
+        counts.oddCorners(x, y);
+        for (int i = 0; i < k; i++) {
+            roundedX[i] = Utils.round(x[i], 2);
+            roundedY[i] = Utils.round(y[i], 2);
+        }
+
+        // the corners in Y_FIRST_POINT_COMPARATOR and X_FIRST_POINT_COMPARATOR order, corners that
+        // round to the same point being in an order that depends on the order of the cells
+        int[] byY = new int[k], byX = new int[k];
+        for (int i = 0; i < k; i++) {
+            byY[i] = i;
+            byX[i] = i;
+        }
+        QuickSort.sort(byY, (i, j) -> {
+            int rv = Float.compare(roundedY[i], roundedY[j]);
+            if (rv == 0) rv = Float.compare(roundedX[i], roundedX[j]);
+            return rv != 0 ? rv : Integer.compare(i, j);
+        });
+        QuickSort.sort(byX, (i, j) -> {
+            int rv = Float.compare(roundedX[i], roundedX[j]);
+            if (rv == 0) rv = Float.compare(roundedY[i], roundedY[j]);
+            return rv != 0 ? rv : Integer.compare(i, j);
+        });
+
+        // corners are paired up into horizontal and vertical edges, which make up the polygons
+        int[] horizontalPartner = new int[k], verticalPartner = new int[k];
+        if (!pairUp(byY, y, tiedWithNext(byY, roundedX, roundedY), horizontalPartner)
+                || !pairUp(byX, x, tiedWithNext(byX, roundedX, roundedY), verticalPartner)) {
+            return traceSpreadsheetsFromCells(cells);
+        }
+
+        // polygons are walked in the order traceSpreadsheetsFromCells walks them, which is the
+        // order of a HashMap of the corners, emptied polygon by polygon in the same way
+        Point2D[] points = new Point2D[k];
+        Map<Point2D, Integer> unvisited = new HashMap<>();
+        for (int i: byY) {
+            points[i] = new Point2D.Float(x[i], y[i]);
+            unvisited.put(points[i], i);
+        }
+        List<Rectangle> rectangles = new ArrayList<>();
+        while (!unvisited.isEmpty()) {
+            int first = unvisited.values().iterator().next();
+            unvisited.remove(points[first]);
+            float boxTop = Float.MAX_VALUE, boxLeft = Float.MAX_VALUE, boxBottom = Float.MIN_VALUE, boxRight = Float.MIN_VALUE;
+            int corner = first;
+            do {
+                int next = verticalPartner[corner];
+                unvisited.remove(points[next]);
+                boxTop = Math.min(boxTop, Math.min(y[corner], y[next]));
+                boxLeft = Math.min(boxLeft, Math.min(x[corner], x[next]));
+                boxBottom = Math.max(boxBottom, Math.max(y[corner], y[next]));
+                boxRight = Math.max(boxRight, Math.max(x[corner], x[next]));
+                corner = horizontalPartner[next];
+            } while (corner != first);
+            for (corner = horizontalPartner[verticalPartner[first]]; corner != first; corner = horizontalPartner[verticalPartner[corner]]) {
+                unvisited.remove(points[corner]);
+            }
+            rectangles.add(new Rectangle(boxTop, boxLeft, boxRight - boxLeft, boxBottom - boxTop));
+        }
+        return rectangles;
+    }
+
+    /**
+     * Pairs up the corners in <code>order</code>, two by two within runs of about the same
+     * coordinate, the way {@link #traceSpreadsheetsFromCells(List)} does.
+     *
+     * @return false if the pairs could be different with corners that are tied in another order
+     */
+    private static boolean pairUp(int[] order, float[] coordinate, boolean[] tied, int[] partner) {
+        int i = 0;
+        while (i < order.length) {
+            float current = coordinate[order[i]];
+            boolean first = true;
+            while (i < order.length && Utils.feq(coordinate[order[i]], current)) {
+                // tied corners can only be the two corners of a pair, which is the same either way
+                if (tied[i] && (first || !Utils.feq(coordinate[order[i + 1]], current)) || tied[i + 1]) {
+                    return false;
+                }
+                partner[order[i]] = order[i + 1];
+                partner[order[i + 1]] = order[i];
+                i += 2;
+                first = false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flags the corners in <code>order</code> that round to the same point as the next one.
+     */
+    private static boolean[] tiedWithNext(int[] order, float[] roundedX, float[] roundedY) {
+        boolean[] rv = new boolean[order.length];
+        for (int i = 0; i + 1 < order.length; i++) {
+            rv[i] = roundedX[order[i]] == roundedX[order[i + 1]] && roundedY[order[i]] == roundedY[order[i + 1]];
+        }
+        return rv;
+    }
+
+    /**
+     * Flags the cells equal to an earlier one, which a <code>HashSet</code> of them would leave out.
+     */
+    private static boolean[] duplicatesOf(List<? extends Rectangle> cells) {
+        int n = cells.size();
+        int mask = tableSize(n) - 1;
+        // cell indices plus one, zero for free slots
+        int[] table = new int[mask + 1];
+        boolean[] rv = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Rectangle cell = cells.get(i);
+            long hash = 31L * (31L * (31L * Float.floatToIntBits(cell.x) + Float.floatToIntBits(cell.y))
+                    + Float.floatToIntBits(cell.width)) + Float.floatToIntBits(cell.height);
+            int slot = mix(hash) & mask;
+            while (table[slot] != 0) {
+                Rectangle other = cells.get(table[slot] - 1);
+                if (other.x == cell.x && other.y == cell.y && other.width == cell.width && other.height == cell.height) {
+                    rv[i] = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (!rv[i]) {
+                table[slot] = i + 1;
+            }
+        }
+        return rv;
+    }
+
+    /**
+     * A power of two at least twice <code>size</code>, for open addressing.
+     */
+    private static int tableSize(int size) {
+        return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) * 2;
+    }
+
+    private static int mix(long hash) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * How many times each corner is found, as a hash table with open addressing keyed by
+     * the bits of the coordinates, so that corners are equal when their coordinates are.
+     */
+    private static final class CornerCounts {
+        private final long[] keys;
+        private final int[] counts;
+        private final int mask;
+
+        CornerCounts(int expectedSize) {
+            mask = tableSize(expectedSize) - 1;
+            keys = new long[mask + 1];
+            counts = new int[mask + 1];
+        }
+
+        void add(float x, float y) {
+            long key = ((long) Float.floatToIntBits(x) << 32) | (Float.floatToIntBits(y) & 0xFFFFFFFFL);
+            int slot = mix(key) & mask;
+            while (counts[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot]++;
+        }
+
+        int oddCount() {
+            int rv = 0;
+            for (int count: counts) {
+                rv += count & 1;
+            }
+            return rv;
+        }
+
+        /**
+         * Puts the coordinates of the corners found an odd number of times in <code>x</code> and <code>y</code>.
+         */
+        void oddCorners(float[] x, float[] y) {
+            int i = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if ((counts[slot] & 1) == 1) {
+                    x[i] = Float.intBitsToFloat((int) (keys[slot] >>> 32));
+                    y[i] = Float.intBitsToFloat((int) keys[slot]);
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the cells into rectilinear polygons, by pairing up the corners that aren't shared,
+     * and returns the bounding box of each polygon.
+     */
+    private static List<Rectangle> traceSpreadsheetsFromCells(List<? extends Rectangle> cells) {
         // via: http://stackoverflow.com/questions/13746284/merging-multiple-adjacent-rectangles-into-one-polygon
         List<Rectangle> rectangles = new ArrayList<>();
         Set<Point2D> pointSet = new HashSet<>();
@@ -323,4 +618,68 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
             return String.format("%s[point=%s,direction=%s]", this.getClass().getName(), this.point.toString(), this.direction.toString());
         }
     }
+
+    /**
+     * Horizontal (or vertical) rulings, ordered by y (or x), to find the ones that cross an area
+     * without looking at all of them.
+     */
+    private static class RulingsByPosition {
+        private final List<Ruling> rulings;
+        private final boolean horizontal;
+        private final int[] order;
+        private final float[] positions;
+
+        RulingsByPosition(List<Ruling> rulings, boolean horizontal) {
+            this.rulings = rulings;
+            this.horizontal = horizontal;
+            order = new int[rulings.size()];
+            positions = new float[rulings.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            float[] unsorted = new float[order.length];
+            for (int i = 0; i < order.length; i++) {
+                unsorted[i] = horizontal ? rulings.get(i).y1 : rulings.get(i).x1;
+            }
+            QuickSort.sort(order, (i, j) -> {
+                int rv = Float.compare(unsorted[i], unsorted[j]);
+                return rv != 0 ? rv : Integer.compare(i, j);
+            });
+            for (int k = 0; k < order.length; k++) {
+                positions[k] = unsorted[order[k]];
+            }
+        }
+
+        /**
+         * The rulings that cross <code>area</code>, in the order of the list.
+         */
+        List<Ruling> crossing(Rectangle area) {
+            // the ends of a horizontal ruling are at almost the same y (see Ruling.horizontal()),
+            // and conversely, so one more unit on each side finds all the candidates
+            float from = (horizontal ? area.getTop() : area.getLeft()) - 1;
+            float to = (horizontal ? area.getBottom() : area.getRight()) + 1;
+            int low = 0, high = positions.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (positions[middle] < from) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            int[] candidates = new int[positions.length - low];
+            int count = 0;
+            for (int k = low; k < positions.length && positions[k] <= to; k++) {
+                if (area.intersectsLine(rulings.get(order[k]))) {
+                    candidates[count++] = order[k];
+                }
+            }
+            Arrays.sort(candidates, 0, count);
+            List<Ruling> rv = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) {
+                rv.add(rulings.get(candidates[k]));
+            }
+            return rv;
+        }
+    }
 }
@@ -2,8 +2,13 @@ package technology.tabula;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
 
+import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
+
 public class TableTest {
 
 	@Test public void testEmpty() {
@@ -42,4 +47,52 @@ public class TableTest {
 		assertEquals(10, table.getColCount());
 	}
 
+	@Test public void testCellsAndRows() {
+		Table table = Table.empty();
+		TextChunk first = new TextChunk(0, 0, 10, 10), second = new TextChunk(0, 20, 10, 10);
+		table.add(first, 0, 0);
+		table.add(second, 1, 2);
+
+		assertSame(first, table.getCell(0, 0));
+		assertSame(second, table.getCell(1, 2));
+		assertEquals(TextChunk.EMPTY, table.getCell(0, 1));
+		assertEquals(TextChunk.EMPTY, table.getCell(5, 5));
+
+		List<List<RectangularTextContainer>> rows = table.getRows();
+		assertEquals(2, rows.size());
+		assertEquals(Arrays.asList(first, TextChunk.EMPTY, TextChunk.EMPTY), rows.get(0));
+		assertEquals(Arrays.asList(TextChunk.EMPTY, TextChunk.EMPTY, second), rows.get(1));
+		assertEquals(Arrays.<RectangularTextContainer>asList(first, second), table.cells.values());
+	}
+
+	@Test public void testCellsOfRaggedTable() {
+		Table table = Table.empty();
+		TextChunk first = new TextChunk(0, 0, 10, 10), second = new TextChunk(0, 20, 10, 10), third = new TextChunk(20, 0, 10, 10);
+		table.add(first, 0, 0);
+		table.add(second, 100000, 3);
+		table.add(third, 2, 1000000);
+
+		assertEquals(100001, table.getRowCount());
+		assertEquals(1000001, table.getColCount());
+		assertSame(first, table.getCell(0, 0));
+		assertSame(second, table.getCell(100000, 3));
+		assertSame(third, table.getCell(2, 1000000));
+		assertEquals(TextChunk.EMPTY, table.getCell(2, 3));
+		assertEquals(Arrays.<RectangularTextContainer>asList(first, third, second), table.cells.values());
+	}
+
+	@Test public void testRulingCellsStartAfterTheLongestRowBelowAndToTheLeft() {
+		Cell topRight = new Cell(0, 20, 10, 10);
+		Cell left = new Cell(10, 0, 10, 10), middle = new Cell(10, 10, 10, 10), right = new Cell(10, 20, 10, 10);
+		Table table = new TableWithRulingLines(new Rectangle(0, 0, 30, 20), Arrays.asList(topRight, left, middle, right),
+				Arrays.<Ruling>asList(), Arrays.<Ruling>asList(), new SpreadsheetExtractionAlgorithm());
+
+		assertEquals(2, table.getRowCount());
+		assertEquals(3, table.getColCount());
+		assertSame(topRight, table.getCell(0, 2));
+		assertSame(left, table.getCell(1, 0));
+		assertSame(middle, table.getCell(1, 1));
+		assertSame(right, table.getCell(1, 2));
+	}
+
 }
@@ -6,11 +6,14 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.junit.Test;
 
 import technology.tabula.extractors.BasicExtractionAlgorithm;
@@ -349,4 +352,94 @@ public class TestBasicExtractor {
         assertEquals(expectedCsv, sb.toString());
     }
 
+    @Test
+    public void testCountRowsAndColumnsMatchesExtractedTable() throws IOException {
+        String[] files = { EU_002_PDF, ARGENTINA_DIPUTADOS_VOTING_RECORD_PDF, "src/test/resources/technology/tabula/us-020.pdf" };
+        for (String file : files) {
+            Page page = UtilsForTesting.getPage(file, 1);
+            Table table = new BasicExtractionAlgorithm().extract(page).get(0);
+            Pair<Integer, Integer> counts = new BasicExtractionAlgorithm().countRowsAndColumns(page);
+            assertEquals(file, table.getRowCount(), (int) counts.getLeft());
+            assertEquals(file, table.getColCount(), (int) counts.getRight());
+            page.getPDDoc().close();
+        }
+
+        Page empty = UtilsForTesting.getAreaFromPage("src/test/resources/technology/tabula/indictb1h_14.pdf", 1, 0, 0, 80.82f, 100.9f);
+        Pair<Integer, Integer> counts = new BasicExtractionAlgorithm().countRowsAndColumns(empty);
+        assertEquals(0, (int) counts.getLeft());
+        assertEquals(0, (int) counts.getRight());
+        empty.getPDDoc().close();
+    }
+
+    @Test
+    public void testColumnPositionsMatchPairwiseRegionMerging() throws IOException {
+        File[] files = new File("src/test/resources/technology/tabula").listFiles((dir, name) -> name.endsWith(".pdf"));
+        Arrays.sort(files);
+        int pages = 0;
+        for (File file : files) {
+            PDDocument document;
+            try {
+                document = PDDocument.load(file);
+            } catch (IOException e) {
+                continue; // encrypted
+            }
+            try (ObjectExtractor oe = new ObjectExtractor(document)) {
+                PageIterator pi = oe.extract();
+                while (pi.hasNext()) {
+                    Page page = pi.next();
+                    List<Line> lines = TextChunk.groupByLines(TextElement.mergeWords(page.getText()));
+                    if (lines.isEmpty()) {
+                        continue;
+                    }
+                    assertEquals(file.getName() + " page " + page.getPageNumber(),
+                            columnPositionsByPairwiseMerging(lines), BasicExtractionAlgorithm.columnPositions(lines));
+                    pages++;
+                }
+            }
+        }
+        assertTrue(pages > 50);
+    }
+
+    /**
+     * How {@link BasicExtractionAlgorithm#columnPositions(List)} used to find the columns,
+     * by checking every chunk of a line against every region.
+     */
+    private static List<Float> columnPositionsByPairwiseMerging(List<Line> lines) {
+        List<Rectangle> regions = new ArrayList<>();
+        for (Line l : lines) {
+            List<TextChunk> lineTextElements = new ArrayList<>();
+            for (TextChunk tc : l.getTextElements()) {
+                if (!tc.isSameChar(Line.WHITE_SPACE_CHARS)) {
+                    lineTextElements.add(tc);
+                }
+            }
+
+            for (Rectangle cr : regions) {
+                List<TextChunk> overlaps = new ArrayList<>();
+                for (TextChunk te : lineTextElements) {
+                    if (cr.horizontallyOverlaps(te)) {
+                        overlaps.add(te);
+                    }
+                }
+                for (TextChunk te : overlaps) {
+                    cr.merge(te);
+                }
+                lineTextElements.removeAll(overlaps);
+            }
+
+            for (TextChunk te : lineTextElements) {
+                Rectangle r = new Rectangle();
+                r.setRect(te);
+                regions.add(r);
+            }
+        }
+
+        List<Float> rv = new ArrayList<>();
+        for (Rectangle r : regions) {
+            rv.add(r.getRight());
+        }
+        Collections.sort(rv);
+        return rv;
+    }
+
 }
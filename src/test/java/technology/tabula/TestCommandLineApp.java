@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.Arrays;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -127,6 +128,30 @@ public class TestCommandLineApp {
         }));
     }
 
+    @Test
+    public void testGuessOptionWithEdgeDetection() throws ParseException, IOException {
+        String expectedCsvWithGuessing = UtilsForTesting.loadCsv("src/test/resources/technology/tabula/csv/TestCommandLineApp_testGuessOption_with_guessing.csv");
+        for (String edgeDetection : new String[]{ "RENDER_TWICE", "RENDER_ONCE", "VECTOR_FIRST" }) {
+            assertEquals(edgeDetection, expectedCsvWithGuessing, this.csvFromCommandLineArgs(new String[]{
+                    "src/test/resources/technology/tabula/icdar2013-dataset/competition-dataset-eu/eu-001.pdf",
+                    "-p", "1",
+                    "-f", "CSV",
+                    "-g",
+                    "--edge-detection", edgeDetection
+            }));
+        }
+    }
+
+    @Test(expected=org.apache.commons.cli.ParseException.class)
+    public void testIllegalEdgeDetection() throws ParseException {
+        this.csvFromCommandLineArgs(new String[]{
+                "src/test/resources/technology/tabula/icdar2013-dataset/competition-dataset-eu/eu-001.pdf",
+                "-p", "1",
+                "-g",
+                "--edge-detection", "RENDER_NEVER"
+        });
+    }
+
     @Test
     public void testEncryptedPasswordSupplied() throws ParseException {
         String s = this.csvFromCommandLineArgs(new String[]{
@@ -216,4 +241,23 @@ public class TestCommandLineApp {
         assertEquals(expectedJson, resultJson);
     }
 
+    @Test
+    public void testMultiplePagesWrittenToNewFile() throws ParseException, IOException {
+        for (String format : new String[] { "CSV", "JSON" }) {
+            String[] args = new String[] {
+                    "src/test/resources/technology/tabula/us-020.pdf",
+                    "-p", "all", "-t", "-f", format
+            };
+            String expected = this.csvFromCommandLineArgs(args);
+
+            File newFile = folder.newFile();
+            String[] argsWithFile = Arrays.copyOf(args, args.length + 2);
+            argsWithFile[args.length] = "-o";
+            argsWithFile[args.length + 1] = newFile.getAbsolutePath();
+            this.csvFromCommandLineArgs(argsWithFile);
+
+            assertArrayEquals(format, expected.getBytes(), Files.readAllBytes(newFile.toPath()));
+        }
+    }
+
 }
@@ -0,0 +1,173 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDInlineImage;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.junit.Test;
+
+import technology.tabula.detectors.EdgeDetection;
+import technology.tabula.detectors.NurminenDetectionAlgorithm;
+
+public class TestNurminenDetectionAlgorithm {
+
+    private interface Painting {
+        void paint(PDPageContentStream contents) throws IOException;
+    }
+
+    @Test
+    public void testRenderingOnceFindsTheSameTablesOnRuledPages() throws IOException {
+        String[] files = { "spanning_cells.pdf", "12s0324.pdf", "offense.pdf" };
+        for (String file : files) {
+            assertSameTablesDetected(file, EdgeDetection.RENDER_ONCE);
+        }
+    }
+
+    @Test
+    public void testVectorRulingsFindTheSameTablesOnCleanlyRuledPages() throws IOException {
+        // MultiColumn.pdf has no rulings making a cell, so its page is rendered as by default
+        String[] files = { "MultiColumn.pdf", "campaign_donors.pdf", "argentina_diputados_voting_record.pdf" };
+        for (String file : files) {
+            assertSameTablesDetected(file, EdgeDetection.VECTOR_FIRST);
+        }
+    }
+
+    @Test
+    public void testRulingsMakingCellsAreReliable() throws IOException {
+        assertTrue(hasReliableRulings(null));
+    }
+
+    @Test
+    public void testRulingsAreNotReliableOnPagesWithInlineImages() throws IOException {
+        assertFalse(hasReliableRulings(contents -> {
+            COSDictionary parameters = new COSDictionary();
+            parameters.setInt(COSName.W, 1);
+            parameters.setInt(COSName.H, 1);
+            parameters.setInt(COSName.BPC, 8);
+            parameters.setItem(COSName.CS, COSName.DEVICEGRAY);
+            contents.drawImage(new PDInlineImage(parameters, new byte[] { 0 }, null), 300, 300, 100, 100);
+        }));
+    }
+
+    @Test
+    public void testRulingsAreNotReliableOnPagesWithShadings() throws IOException {
+        assertFalse(hasReliableRulings(contents -> {
+            COSDictionary function = new COSDictionary();
+            function.setInt(COSName.FUNCTION_TYPE, 2);
+            function.setItem(COSName.DOMAIN, floats(0, 1));
+            function.setItem(COSName.C0, floats(0));
+            function.setItem(COSName.C1, floats(1));
+            function.setInt(COSName.N, 1);
+
+            COSDictionary shading = new COSDictionary();
+            shading.setInt(COSName.SHADING_TYPE, PDShading.SHADING_TYPE2);
+            shading.setItem(COSName.COLORSPACE, COSName.DEVICEGRAY);
+            shading.setItem(COSName.COORDS, floats(300, 300, 400, 300));
+            shading.setItem(COSName.FUNCTION, function);
+            contents.shadingFill(PDShading.create(shading));
+        }));
+    }
+
+    @Test
+    public void testScanningInStripsFindsTheSameEdgesInTheSameOrder() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(25);
+            for (int i = 0; i < 50; i++) {
+                BufferedImage image = imageWithLines(random, 1 + random.nextInt(200), 1 + random.nextInt(200));
+                List<Ruling> horizontalEdges = NurminenDetectionAlgorithm.findHorizontalEdges(image, Integer.MAX_VALUE, pool);
+                List<Ruling> verticalEdges = NurminenDetectionAlgorithm.findVerticalEdges(image, Integer.MAX_VALUE, pool);
+                // strips of a single row, or column, put an edge on every boundary between strips
+                for (int stripSize : new int[] { 1, 2, 3, 7 }) {
+                    assertEquals(horizontalEdges, NurminenDetectionAlgorithm.findHorizontalEdges(image, stripSize, pool));
+                    assertEquals(verticalEdges, NurminenDetectionAlgorithm.findVerticalEdges(image, stripSize, pool));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameTablesDetected(String file, EdgeDetection edgeDetection) throws IOException {
+        // the document has to stay open for the page to be rendered
+        try (PDDocument document = PDDocument.load(new File("src/test/resources/technology/tabula/" + file))) {
+            Page page = new ObjectExtractor(document).extract(1);
+            List<Rectangle> expected = new NurminenDetectionAlgorithm().detect(page);
+            assertFalse(file, expected.isEmpty());
+            assertEquals(file, expected, new NurminenDetectionAlgorithm(edgeDetection).detect(page));
+        }
+    }
+
+    /**
+     * A white image with some noise, crossed by lines of all lengths, some of them running side by side.
+     */
+    private static BufferedImage imageWithLines(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster raster = image.getRaster();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.setSample(x, y, 0, random.nextInt(10) < 9 ? 255 : random.nextInt(256));
+            }
+        }
+        for (int i = 0; i < 30; i++) {
+            int gray = random.nextInt(128);
+            int thickness = 1 + random.nextInt(3);
+            if (random.nextBoolean()) {
+                int top = random.nextInt(height), left = random.nextInt(width), right = Math.min(width, left + random.nextInt(150));
+                for (int y = top; y < Math.min(height, top + thickness); y++) {
+                    for (int x = left; x < right; x++) {
+                        raster.setSample(x, y, 0, gray);
+                    }
+                }
+            } else {
+                int left = random.nextInt(width), top = random.nextInt(height), bottom = Math.min(height, top + random.nextInt(150));
+                for (int x = left; x < Math.min(width, left + thickness); x++) {
+                    for (int y = top; y < bottom; y++) {
+                        raster.setSample(x, y, 0, gray);
+                    }
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Whether the rulings of a page ruled in cells are reliable, once <code>painting</code>, if any,
+     * is painted on it too.
+     */
+    private static boolean hasReliableRulings(Painting painting) throws IOException {
+        try (PDDocument document = PDDocument.load(new File("src/test/resources/technology/tabula/campaign_donors.pdf"))) {
+            if (painting != null) {
+                try (PDPageContentStream contents = new PDPageContentStream(document, document.getPage(0),
+                        PDPageContentStream.AppendMode.APPEND, true, true)) {
+                    painting.paint(contents);
+                }
+            }
+            Page page = new ObjectExtractor(document).extract(1);
+            return NurminenDetectionAlgorithm.hasReliableRulings(page);
+        }
+    }
+
+    private static COSArray floats(float... values) {
+        COSArray array = new COSArray();
+        for (float value : values) {
+            array.add(new COSFloat(value));
+        }
+        return array;
+    }
+
+}
@@ -5,9 +5,13 @@ import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.junit.Test;
 
 public class TestObjectExtractor {
@@ -146,4 +150,131 @@ public class TestObjectExtractor {
             fail("NPE in ObjectExtractor " + e.toString());
         }
     }
+
+    @Test
+    public void testExtractParallelMatchesSequentialExtraction() throws IOException {
+        File file = new File("src/test/resources/technology/tabula/us-020.pdf");
+        PDDocument pdf_document = PDDocument.load(file);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try (ObjectExtractor oe = new ObjectExtractor(pdf_document)) {
+            List<Page> pages = oe.extractParallel(executor, file);
+            assertEquals(6, pages.size());
+
+            PageIterator pi = oe.extract();
+            for (Page parallel : pages) {
+                Page sequential = pi.next();
+                assertEquals(sequential.getPageNumber(), parallel.getPageNumber());
+                assertSame(pdf_document, parallel.getPDDoc());
+                assertEquals(sequential.getText().size(), parallel.getText().size());
+                for (int i = 0; i < sequential.getText().size(); i++) {
+                    assertEquals(sequential.getText().get(i).getText(), parallel.getText().get(i).getText());
+                    assertEquals(sequential.getText().get(i).getBounds2D(), parallel.getText().get(i).getBounds2D());
+                }
+                assertEquals(sequential.getRulings(), parallel.getRulings());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExtractParallelOnEncryptedFile() throws IOException {
+        File file = new File("src/test/resources/technology/tabula/S2MNCEbirdisland.pdf");
+        PDDocument pdf_document = PDDocument.load(file);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try (ObjectExtractor oe = new ObjectExtractor(pdf_document)) {
+            List<Page> pages = oe.extractParallel(executor, file);
+            assertEquals(2, pages.size());
+            assertEquals(1, pages.get(0).getPageNumber());
+            assertEquals(2, pages.get(1).getPageNumber());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExtractParallelKeepsWorkerDocumentsOpenUntilClosed() throws IOException {
+        final File file = new File("src/test/resources/technology/tabula/us-020.pdf");
+        final List<PDDocument> handles = Collections.synchronizedList(new ArrayList<PDDocument>());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        ObjectExtractor oe = new ObjectExtractor(PDDocument.load(file));
+        try {
+            oe.extractParallel(Utils.range(1, 7), executor, () -> {
+                PDDocument handle = PDDocument.load(file);
+                handles.add(handle);
+                return handle;
+            });
+            assertFalse(handles.isEmpty());
+            // the pages' text uses the fonts of the handles
+            for (PDDocument handle : handles) {
+                assertFalse(handle.getDocument().isClosed());
+            }
+        } finally {
+            oe.close();
+            executor.shutdown();
+        }
+        for (PDDocument handle : handles) {
+            assertTrue(handle.getDocument().isClosed());
+        }
+    }
+
+    @Test
+    public void testSinglePassExtractionMatchesSeparateEngines() throws IOException {
+        String[] files = { "us-017.pdf", "spanning_cells.pdf", "should_detect_rulings.pdf", "labor.pdf" };
+        for (String file : files) {
+            try (PDDocument pdf_document = PDDocument.load(new File("src/test/resources/technology/tabula/" + file))) {
+                PDPage pdPage = pdf_document.getPage(0);
+                ObjectExtractorStreamEngine streamEngine = new ObjectExtractorStreamEngine(pdPage);
+                streamEngine.processPage(pdPage);
+                TextStripper textStripper = new TextStripper(pdf_document, 1);
+                textStripper.process();
+
+                TextAndRulingStripper singlePass = new TextAndRulingStripper(pdf_document, 1);
+                singlePass.process();
+
+                assertEquals(file, streamEngine.rulings, singlePass.getRulings());
+                assertEquals(file, textStripper.getTextElements(), singlePass.getTextElements());
+            }
+        }
+    }
+
+    @Test
+    public void testExtractionProfilesExtractTheSamePage() throws IOException {
+        try (PDDocument pdf_document = PDDocument.load(new File("src/test/resources/technology/tabula/us-017.pdf"))) {
+            Page expected = new ObjectExtractor(pdf_document).extract(2);
+            Rectangle area = new Rectangle(100, 50, 400, 300);
+            Page expectedArea = expected.getArea(area);
+
+            for (ExtractionProfile profile : new ExtractionProfile[] { ExtractionProfile.TEXT, ExtractionProfile.ON_DEMAND }) {
+                Page page = new ObjectExtractor(pdf_document, profile).extract(2);
+                Page pageArea = page.getArea(area);
+
+                assertEquals(profile.name(), expected.getText(), page.getText());
+                assertEquals(profile.name(), expected.getRulings(), page.getRulings());
+                assertEquals(profile.name(), expectedArea.getText(), pageArea.getText());
+                assertEquals(profile.name(), expectedArea.getRulings(), pageArea.getRulings());
+            }
+        }
+    }
+
+    @Test
+    public void testSortedGlyphsMatchSortedTextElements() throws IOException {
+        String[] files = { "us-017.pdf", "eu-002.pdf", "arabic.pdf", "indictb1h_14.pdf" };
+        for (String file : files) {
+            try (PDDocument pdf_document = PDDocument.load(new File("src/test/resources/technology/tabula/" + file))) {
+                TextStripper textStripper = new TextStripper(pdf_document, 1);
+                textStripper.process();
+                List<TextElement> expected = new ArrayList<>(textStripper.getTextElements());
+                Utils.sort(expected, Rectangle.ILL_DEFINED_ORDER);
+
+                GlyphStore glyphs = textStripper.getGlyphs();
+                glyphs.sort();
+
+                assertEquals(file, expected, glyphs.toTextElements());
+            }
+        }
+    }
 }
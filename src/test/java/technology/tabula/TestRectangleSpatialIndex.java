@@ -2,6 +2,16 @@ package technology.tabula;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Test;
 
 public class TestRectangleSpatialIndex {
@@ -18,4 +28,139 @@ public class TestRectangleSpatialIndex {
 
 	}
 
+	@Test
+	public void testQueriesMatchBruteForce() {
+		Random random = new Random(7);
+		List<Rectangle> rectangles = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			rectangles.add(new Rectangle(random.nextInt(800), random.nextInt(600), random.nextFloat() * 20, random.nextFloat() * 10));
+		}
+		RectangleSpatialIndex<Rectangle> bulkLoaded = RectangleSpatialIndex.of(rectangles);
+		RectangleSpatialIndex<Rectangle> incremental = new RectangleSpatialIndex<>();
+		for (Rectangle r : rectangles) {
+			incremental.add(r);
+		}
+
+		for (int i = 0; i < 100; i++) {
+			Rectangle area = new Rectangle(random.nextFloat() * 800, random.nextFloat() * 600, random.nextFloat() * 200, random.nextFloat() * 200);
+			Set<Rectangle> expectedIntersecting = new HashSet<>();
+			List<Rectangle> expectedContained = new ArrayList<>();
+			for (Rectangle r : rectangles) {
+				if (r.getLeft() <= area.getRight() && r.getRight() >= area.getLeft()
+						&& r.getTop() <= area.getBottom() && r.getBottom() >= area.getTop()) {
+					expectedIntersecting.add(r);
+				}
+				if (area.contains(r)) {
+					expectedContained.add(r);
+				}
+			}
+
+			assertEquals(expectedIntersecting, new HashSet<>(bulkLoaded.intersects(area)));
+			assertEquals(bulkLoaded.intersects(area), incremental.intersects(area));
+			assertEquals(new HashSet<>(expectedContained), new HashSet<>(bulkLoaded.contains(area)));
+		}
+
+		assertEquals(Rectangle.boundingBoxOf(rectangles), bulkLoaded.getBounds());
+	}
+
+	@Test
+	public void testAddAfterQuery() {
+		RectangleSpatialIndex<Rectangle> rSpatialIndex = new RectangleSpatialIndex<>();
+		rSpatialIndex.add(new Rectangle(0, 0, 10, 10));
+		assertEquals(1, rSpatialIndex.intersects(new Rectangle(0, 0, 100, 100)).size());
+
+		rSpatialIndex.add(new Rectangle(50, 50, 10, 10));
+		assertEquals(2, rSpatialIndex.intersects(new Rectangle(0, 0, 100, 100)).size());
+		assertEquals(new Rectangle(0, 0, 60, 60), rSpatialIndex.getBounds());
+	}
+
+	@Test
+	public void testEmptyIndex() {
+		RectangleSpatialIndex<Rectangle> rSpatialIndex = RectangleSpatialIndex.of(new ArrayList<Rectangle>());
+		assertTrue(rSpatialIndex.intersects(new Rectangle(0, 0, 100, 100)).isEmpty());
+		assertTrue(rSpatialIndex.contains(new Rectangle(0, 0, 100, 100)).isEmpty());
+	}
+
+	@Test
+	public void testVisitorAndBufferQueries() {
+		Random random = new Random(11);
+		List<Rectangle> rectangles = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			rectangles.add(new Rectangle(random.nextInt(800), random.nextInt(600), random.nextFloat() * 20, random.nextFloat() * 10));
+		}
+		RectangleSpatialIndex<Rectangle> rSpatialIndex = RectangleSpatialIndex.of(rectangles);
+
+		List<Rectangle> buffer = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Rectangle area = new Rectangle(random.nextFloat() * 800, random.nextFloat() * 600, random.nextFloat() * 200, random.nextFloat() * 200);
+
+			List<Rectangle> visited = new ArrayList<>();
+			rSpatialIndex.intersects(area, visited::add);
+			assertEquals(rSpatialIndex.intersects(area), visited);
+
+			visited.clear();
+			rSpatialIndex.contains(area, visited::add);
+			assertEquals(new HashSet<>(rSpatialIndex.contains(area)), new HashSet<>(visited));
+			assertEquals(visited, rSpatialIndex.contains(area, buffer, false));
+			assertEquals(rSpatialIndex.contains(area), rSpatialIndex.contains(area, buffer, true));
+		}
+	}
+
+	@Test
+	public void testContainsManyAreas() {
+		Random random = new Random(13);
+		List<Rectangle> rectangles = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			rectangles.add(new Rectangle(random.nextInt(800), random.nextInt(600), random.nextFloat() * 20, random.nextFloat() * 10));
+		}
+		RectangleSpatialIndex<Rectangle> rSpatialIndex = RectangleSpatialIndex.of(rectangles);
+
+		List<Rectangle> areas = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			areas.add(new Rectangle(random.nextFloat() * 800, random.nextFloat() * 600, random.nextFloat() * 200, random.nextFloat() * 200));
+		}
+		// areas that are exactly one of the rectangles, and an empty one
+		areas.add(rectangles.get(0));
+		areas.add(rectangles.get(1));
+		areas.add(new Rectangle(100, 100, 0, 0));
+
+		List<List<Rectangle>> contained = rSpatialIndex.contains(areas);
+		assertEquals(areas.size(), contained.size());
+		for (int i = 0; i < areas.size(); i++) {
+			assertEquals(rSpatialIndex.contains(areas.get(i)), contained.get(i));
+		}
+	}
+
+
+	@Test
+	public void testConcurrentQueriesOfAnUnbuiltIndex() throws Exception {
+		Random random = new Random(17);
+		List<Rectangle> rectangles = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			rectangles.add(new Rectangle(random.nextInt(800), random.nextInt(600), random.nextFloat() * 20, random.nextFloat() * 10));
+		}
+		Rectangle area = new Rectangle(100, 100, 300, 200);
+		List<Rectangle> expected = RectangleSpatialIndex.of(rectangles).contains(area);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int round = 0; round < 20; round++) {
+				// built by whichever query comes first
+				RectangleSpatialIndex<Rectangle> rSpatialIndex = new RectangleSpatialIndex<>();
+				for (Rectangle r : rectangles) {
+					rSpatialIndex.add(r);
+				}
+				List<Callable<List<Rectangle>>> queries = new ArrayList<>();
+				for (int i = 0; i < 8; i++) {
+					queries.add(() -> rSpatialIndex.contains(area));
+				}
+				for (Future<List<Rectangle>> result : executor.invokeAll(queries)) {
+					assertEquals(expected, result.get());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 }
@@ -2,6 +2,15 @@ package technology.tabula;
 
 import static org.junit.Assert.*;
 
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -104,4 +113,58 @@ public class TestRuling {
 
 	}
 
+	@Test
+	public void testFindIntersectionsOfHorizontalsAtTheSameY() {
+		// the sweep reaches the left end of h2 before the right end of h1
+		Ruling h1 = new Ruling(10, 0, 100, 0);
+		Ruling h2 = new Ruling(10, 103, 97, 0);
+		Ruling v1 = new Ruling(0, 50, 0, 20);
+		Ruling v2 = new Ruling(0, 150, 0, 20);
+
+		Map<Point2D, Ruling[]> m = Ruling.findIntersections(Arrays.asList(h1, h2), Arrays.asList(v1, v2));
+
+		assertEquals(2, m.size());
+		assertArrayEquals(new Ruling[] { h1.expand(2), v1.expand(2) }, m.get(new Point2D.Float(50, 10)));
+		assertArrayEquals(new Ruling[] { h2.expand(2), v2.expand(2) }, m.get(new Point2D.Float(150, 10)));
+	}
+
+	@Test
+	public void testRulingIntersectionsMatchBruteForce() {
+		Random random = new Random(42);
+		for (int t = 0; t < 200; t++) {
+			// odd ends for the horizontals and even positions for the verticals, so that
+			// no vertical is exactly where the sweep starts or stops a horizontal
+			List<Ruling> horizontals = new ArrayList<>();
+			List<Ruling> verticals = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				horizontals.add(new Ruling(random.nextInt(50) * 4, random.nextInt(100) * 2 + 1, random.nextInt(100) * 2 + 2, 0));
+				verticals.add(new Ruling(random.nextInt(200), random.nextInt(100) * 2, 0, random.nextInt(100) + 1));
+			}
+
+			Set<Point2D> expected = new HashSet<>();
+			for (Ruling h : horizontals) {
+				for (Ruling v : verticals) {
+					Point2D p = h.intersectionPoint(v);
+					if (p != null) {
+						expected.add(p);
+					}
+				}
+			}
+
+			RulingIntersections intersections = RulingIntersections.find(horizontals, verticals);
+			Set<Point2D> actual = new HashSet<>();
+			for (int i = 0; i < intersections.size(); i++) {
+				Point2D p = new Point2D.Float(intersections.getX(i), intersections.getY(i));
+				assertNotNull(horizontals.get(intersections.getHorizontalIndex(i)).intersectionPoint(verticals.get(intersections.getVerticalIndex(i))));
+				if (i > 0) {
+					assertTrue(intersections.getY(i - 1) < p.getY()
+							|| intersections.getY(i - 1) == p.getY() && intersections.getX(i - 1) < p.getX());
+				}
+				actual.add(p);
+			}
+			assertEquals(expected, actual);
+			assertEquals(expected.size(), Ruling.findIntersections(horizontals, verticals).size());
+		}
+	}
+
 }
@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -156,6 +157,17 @@ public class TestSpreadsheetExtractor {
         assertFalse(cells.get(0).intersects(cells.get(1)));
     }
 
+    @Test
+    public void testFindCellsWithSpanningCell() {
+        // the middle vertical only goes through the first row, so the second row is a single cell
+        List<Ruling> horizontals = Arrays.asList(new Ruling(0, 0, 20, 0), new Ruling(10, 0, 20, 0), new Ruling(20, 0, 20, 0));
+        List<Ruling> verticals = Arrays.asList(new Ruling(0, 0, 0, 20), new Ruling(0, 10, 0, 10), new Ruling(0, 20, 0, 20));
+
+        List<Cell> cells = SpreadsheetExtractionAlgorithm.findCells(horizontals, verticals);
+
+        assertEquals(Arrays.asList(new Cell(0, 0, 10, 10), new Cell(0, 10, 10, 10), new Cell(10, 0, 20, 10)), cells);
+    }
+
     @Test
     public void testFindSpreadsheetsFromCells() throws IOException {
 
@@ -180,6 +192,38 @@ public class TestSpreadsheetExtractor {
         assertTrue(foundRectangles.equals(expected));
     }
 
+    @Test
+    public void testFindSpreadsheetsFromCellsThatAreNotRectangles() {
+        List<Cell> cells = new ArrayList<>();
+        // a ring of cells around a hole, which comes out as a spreadsheet of its own
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                if (row != 1 || column != 1) {
+                    cells.add(new Cell(row * 10, column * 10, 10, 10));
+                }
+            }
+        }
+        // an L, with one of its cells twice
+        cells.add(new Cell(0, 100, 10, 10));
+        cells.add(new Cell(0, 110, 10, 10));
+        cells.add(new Cell(10, 100, 10, 10));
+        cells.add(new Cell(0, 100, 10, 10));
+        // a cell inside another one
+        cells.add(new Cell(50, 100, 100, 100));
+        cells.add(new Cell(70, 120, 20, 20));
+
+        // in the order the areas have always come out in, which the order of extracted tables depends on
+        List<Rectangle> expected = Arrays.asList(
+                new Rectangle(0, 0, 30, 30),
+                new Rectangle(70, 120, 20, 20),
+                new Rectangle(0, 100, 20, 20),
+                new Rectangle(10, 10, 10, 10),
+                new Rectangle(50, 100, 100, 100));
+        assertEquals(expected, SpreadsheetExtractionAlgorithm.findSpreadsheetsFromCells(cells));
+        Collections.shuffle(cells, new Random(3));
+        assertEquals(expected, SpreadsheetExtractionAlgorithm.findSpreadsheetsFromCells(cells));
+    }
+
     // TODO Add assertions
     @Test
     public void testSpreadsheetExtraction() throws IOException {
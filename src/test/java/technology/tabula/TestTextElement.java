@@ -202,6 +202,30 @@ public class TestTextElement {
 		
 	}	
 	
+	@Test
+	public void mergeElementsSeparatedByVerticalRulings() {
+		
+		List<TextElement> elements = new ArrayList<>();
+		elements.add(new TextElement(0f, 0f, 10f, 20f, PDType1Font.HELVETICA, 1f, "H", 1f, 6f));
+		elements.add(new TextElement(0f, 10f, 10f, 20f, PDType1Font.HELVETICA, 1f, "O", 1f, 6f));
+		elements.add(new TextElement(0f, 20f, 10f, 20f, PDType1Font.HELVETICA, 1f, "L", 1f, 6f));
+		elements.add(new TextElement(0f, 30f, 10f, 20f, PDType1Font.HELVETICA, 1f, "A", 1f, 6f));
+		
+		List<Ruling> rulings = new ArrayList<>();
+		rulings.add(new Ruling(0f, 25f, 0f, 20f));
+		rulings.add(new Ruling(30f, 15f, 0f, 20f)); // below the text
+		rulings.add(new Ruling(0f, 5f, 0f, 20f));
+		
+		List<TextChunk> words = TextElement.mergeWords(elements, rulings);
+		
+		Assert.assertEquals(3, words.size());
+		Assert.assertEquals("H", words.get(0).getText());
+		Assert.assertEquals("OL", words.get(1).getText());
+		Assert.assertEquals("A", words.get(2).getText());
+		Assert.assertEquals(words, TextElement.mergeWords(elements, new VerticalRulingIndex(rulings)));
+		
+	}
+	
 	
 
 }
@@ -3,6 +3,7 @@ package technology.tabula;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 import java.awt.geom.Point2D;
 import java.io.File;
@@ -80,6 +81,53 @@ public class TestUtils {
         Utils.parsePagesOption("quuxor");
     }
 
+    @Test
+    public void testRoundMatchesBigDecimalNearHalfWayPoints() {
+        for (int decimalPlace = 0; decimalPlace <= 3; decimalPlace++) {
+            int range = decimalPlace == 2 ? 200000 : 20000;
+            double scale = Math.pow(10, decimalPlace);
+            for (int k = -range; k <= range; k++) {
+                double halfWay = (k + 0.5) / scale;
+                assertRoundsLikeBigDecimal(halfWay, decimalPlace);
+                double up = halfWay, down = halfWay;
+                for (int ulps = 0; ulps < 3; ulps++) {
+                    up = Math.nextUp(up);
+                    down = Math.nextDown(down);
+                    assertRoundsLikeBigDecimal(up, decimalPlace);
+                    assertRoundsLikeBigDecimal(down, decimalPlace);
+                }
+                assertRoundsLikeBigDecimal((float) halfWay, decimalPlace);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundMatchesBigDecimalOnRandomValues() {
+        java.util.Random random = new java.util.Random(8);
+        for (int i = 0; i < 300000; i++) {
+            double magnitude = Math.pow(10, random.nextInt(12) - 4);
+            double d = (random.nextDouble() * 2 - 1) * magnitude;
+            int decimalPlace = random.nextInt(6);
+            assertRoundsLikeBigDecimal(d, decimalPlace);
+            assertRoundsLikeBigDecimal((float) d, decimalPlace);
+        }
+        double[] specialValues = { 0.0, -0.0, 0.001, -0.001, 0.005, -0.005, 1e-300, 4194303.999, 4194304.5, 1e20, -1e20 };
+        for (double d : specialValues) {
+            for (int decimalPlace = 0; decimalPlace <= 12; decimalPlace++) {
+                assertRoundsLikeBigDecimal(d, decimalPlace);
+            }
+        }
+    }
+
+    private static void assertRoundsLikeBigDecimal(double d, int decimalPlace) {
+        float expected = Utils.roundWithBigDecimal(d, decimalPlace);
+        float actual = Utils.round(d, decimalPlace);
+        if (Float.floatToIntBits(expected) != Float.floatToIntBits(actual)) {
+            assertEquals("round(" + d + ", " + decimalPlace + ")", expected, actual, 0);
+            fail("round(" + d + ", " + decimalPlace + ") gave " + actual + " instead of " + expected);
+        }
+    }
+
     @Test
     public void testQuickSortEmptyList() {
     	List<Integer> numbers = new ArrayList<>();
@@ -1,8 +1,10 @@
 package technology.tabula;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 import org.junit.Test;
@@ -46,6 +48,21 @@ public class TestWriters {
         assertEquals(expectedCsv, s);
     }
 
+    @Test
+    public void testCSVWriterClosesItsOutput() throws IOException {
+        final boolean[] closed = { false };
+        StringWriter out = new StringWriter() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        (new CSVWriter()).write(out, this.getTable());
+        assertTrue(closed[0]);
+        assertEquals(EXPECTED_CSV_WRITER_OUTPUT, out.toString().split("\\r?\\n")[0]);
+    }
+
     // TODO Add assertions
     @Test
     public void testTSVWriter() throws IOException {